@@ -0,0 +1,547 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Scanner;
+
+/**
+ * Benchmarks the queues, dispatching, input parsing and the whole
+ * simulation loop, so a change can be checked for getting faster or
+ * slower. Every benchmark is warmed up and then measured over several
+ * timed iterations. Results are printed as a table and can also be written
+ * as JSON to keep track of them between changes.
+ *
+ * Compile together with the sources and run from the repository root:
+ * <pre>
+ * javac -d out src/*.java bench/*.java
+ * java -cp out MFQBenchmark [-filter text] [-max jobs] [-json file]
+ *                           [-warmup n] [-iterations n] [-time ms]
+ * </pre>
+ */
+public class MFQBenchmark {
+
+// ---------- Field members
+
+	private static final int QUEUE_OPS = 1 << 16;
+	private static final int CHURN_SIZE = 1 << 16;
+	private static final int PARSE_JOBS = 1000000;
+	private static final int DISPATCH_JOBS = 100000;
+
+	// Results are written here so the work cannot be optimized away
+	static volatile long sink;
+	private static File parseInput;
+
+	private int warmup = 3;
+	private int iterations = 5;
+	private long iterationMillis = 1000;
+	private long maxJobs = 1000000;
+	private String filter = null;
+	private String jsonFile = null;
+	private List<Result> results = new ArrayList<Result>();
+
+
+// ---------- Public methods
+
+	public static void main(String[] args) throws IOException {
+		MFQBenchmark bench = new MFQBenchmark();
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (i + 1 == args.length) usage();
+			if (arg.equals("-filter")) bench.filter = args[++i];
+			else if (arg.equals("-max")) bench.maxJobs = Long.parseLong(args[++i]);
+			else if (arg.equals("-json")) bench.jsonFile = args[++i];
+			else if (arg.equals("-warmup")) bench.warmup = Integer.parseInt(args[++i]);
+			else if (arg.equals("-iterations")) bench.iterations = Integer.parseInt(args[++i]);
+			else if (arg.equals("-time")) bench.iterationMillis = Long.parseLong(args[++i]);
+			else usage();
+		}
+		bench.runAll();
+	}
+
+	/**
+	 * Runs every benchmark that matches the filter and reports the results.
+	 * @throws IOException Input or result files could not be written
+	 */
+	public void runAll() throws IOException {
+		System.out.println(String.format(Locale.ROOT, "%-32s %16s %12s %10s",
+				"Benchmark", "Mean", "Stddev", "Unit"));
+
+		run(new SteadyQueue("queue.steady.IntRingQueue", new IntQueueOps(), 16));
+		run(new SteadyQueue("queue.steady.IntRingQueue.deep", new IntQueueOps(), 4096));
+		run(new SteadyQueue("queue.steady.RingQueue", new RingQueueOps(), 16));
+		run(new SteadyQueue("queue.steady.RingQueue.deep", new RingQueueOps(), 4096));
+		run(new SteadyQueue("queue.steady.ObjectQueue", new ObjectQueueOps(), 16));
+		run(new SteadyQueue("queue.steady.ObjectQueue.deep", new ObjectQueueOps(), 4096));
+		run(new ChurnQueue("queue.churn.IntRingQueue", new IntQueueOps()));
+		run(new ChurnQueue("queue.churn.RingQueue", new RingQueueOps()));
+		run(new ChurnQueue("queue.churn.ObjectQueue", new ObjectQueueOps()));
+
+		run(new CPUDispatch());
+		run(new EngineDispatch());
+
+		run(new ScannerParse());
+		run(new MappedParse("parse.mapped", 0));
+		run(new MappedParse("parse.mapped.parallel",
+				Runtime.getRuntime().availableProcessors()));
+
+		for (long jobs = 1000; jobs <= maxJobs; jobs *= 10) {
+			run(new EndToEnd(jobs));
+		}
+
+		if (jsonFile != null) writeJson(new File(jsonFile));
+	}
+
+
+// ---------- Private methods
+
+	private static void usage() {
+		System.out.println("Usage: java MFQBenchmark [-filter text] [-max jobs]" +
+				" [-json file] [-warmup n] [-iterations n] [-time ms]");
+		System.exit(1);
+	}
+
+	private boolean matches(String name) {
+		return filter == null || name.contains(filter);
+	}
+
+	/**
+	 * Warms up and measures a benchmark if it matches the filter.
+	 * @param bench Benchmark to be run
+	 */
+	private void run(Benchmark bench) throws IOException {
+		if (!matches(bench.name)) return;
+		bench.setUp();
+		for (int i = 0; i < warmup; i++) {
+			measure(bench);
+		}
+		double[] scores = new double[iterations];
+		for (int i = 0; i < iterations; i++) {
+			scores[i] = measure(bench);
+		}
+		Result result = new Result(bench.name, bench.unit, scores);
+		results.add(result);
+		System.out.println(String.format(Locale.ROOT, "%-32s %16.1f %12.1f %10s",
+				result.name, result.mean(), result.stddev(), result.unit));
+	}
+
+	/**
+	 * Invokes a benchmark until an iteration's worth of time has passed,
+	 * and at least once.
+	 * @param bench Benchmark to be invoked
+	 * @return Operations per second
+	 */
+	private double measure(Benchmark bench) throws IOException {
+		long deadline = iterationMillis * 1000000L;
+		long ops = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			ops += bench.invoke();
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < deadline);
+		return ops / (elapsed / 1e9);
+	}
+
+	/**
+	 * Returns the trace the parsing benchmarks read, writing it to a
+	 * temporary file the first time.
+	 * @return Trace file in the input format
+	 */
+	private static File parseInput() throws IOException {
+		if (parseInput == null) {
+			File file = File.createTempFile("mfq-bench", ".txt");
+			file.deleteOnExit();
+			writeTrace(file, PARSE_JOBS);
+			parseInput = file;
+		}
+		return parseInput;
+	}
+
+	/**
+	 * Writes a trace of the given number of jobs in the input format.
+	 * @param file File to be written
+	 * @param numJobs Number of jobs
+	 */
+	private static void writeTrace(File file, int numJobs) throws IOException {
+		SyntheticJobSource source = new SyntheticJobSource(numJobs, 1);
+		JobTable table = new JobTable();
+		PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter(file), 1 << 16));
+		while (source.hasNextJob()) {
+			int job = source.nextJob(table);
+			pw.print(table.getArrivalTime(job));
+			pw.print("   ");
+			pw.print(table.getPID(job));
+			pw.print("   ");
+			pw.println(table.getTimeRequired(job));
+			table.release(job);
+		}
+		pw.close();
+	}
+
+	/**
+	 * Writes every result as a JSON document.
+	 * @param file File to be written
+	 */
+	private void writeJson(File file) throws IOException {
+		Writer out = new BufferedWriter(new FileWriter(file));
+		out.write("{\n");
+		out.write("  \"jvm\": \"" + System.getProperty("java.vm.name") + " " +
+				System.getProperty("java.version") + "\",\n");
+		out.write("  \"timestamp\": " + System.currentTimeMillis() + ",\n");
+		out.write("  \"results\": [\n");
+		for (int i = 0; i < results.size(); i++) {
+			Result r = results.get(i);
+			out.write(String.format(Locale.ROOT,
+					"    {\"benchmark\": \"%s\", \"unit\": \"%s\", \"mean\": %.3f, " +
+					"\"stddev\": %.3f, \"min\": %.3f, \"max\": %.3f, \"iterations\": %d}",
+					r.name, r.unit, r.mean(), r.stddev(), r.min(), r.max(),
+					r.scores.length));
+			out.write(i + 1 < results.size() ? ",\n" : "\n");
+		}
+		out.write("  ]\n}\n");
+		out.close();
+	}
+
+
+// ---------- Inner classes
+
+	/**
+	 * A piece of work that is timed. Each invocation reports how many
+	 * operations it did.
+	 */
+	private static abstract class Benchmark {
+		String name, unit;
+
+		Benchmark(String name, String unit) {
+			this.name = name;
+			this.unit = unit;
+		}
+
+		void setUp() throws IOException {
+		}
+
+		abstract long invoke() throws IOException;
+	}
+
+	/**
+	 * Scores of one benchmark.
+	 */
+	private static class Result {
+		String name, unit;
+		double[] scores;
+
+		Result(String name, String unit, double[] scores) {
+			this.name = name;
+			this.unit = unit;
+			this.scores = scores;
+		}
+
+		double mean() {
+			double sum = 0;
+			for (double s : scores) sum += s;
+			return sum / scores.length;
+		}
+
+		double stddev() {
+			if (scores.length < 2) return 0.0;
+			double mean = mean(), sum = 0;
+			for (double s : scores) sum += (s - mean) * (s - mean);
+			return Math.sqrt(sum / (scores.length - 1));
+		}
+
+		double min() {
+			double min = Double.MAX_VALUE;
+			for (double s : scores) min = Math.min(min, s);
+			return min;
+		}
+
+		double max() {
+			double max = 0;
+			for (double s : scores) max = Math.max(max, s);
+			return max;
+		}
+	}
+
+	/**
+	 * Inserts into and removes from one kind of queue, so the queue
+	 * benchmarks are the same for every kind.
+	 */
+	private static abstract class QueueOps {
+		abstract void reset();
+		abstract void insert(int value);
+		abstract int remove();
+	}
+
+	private static class IntQueueOps extends QueueOps {
+		IntRingQueue queue;
+		void reset() { queue = new IntRingQueue(); }
+		void insert(int value) { queue.insert(value); }
+		int remove() { return queue.remove(); }
+	}
+
+	private static class RingQueueOps extends QueueOps {
+		RingQueue<Integer> queue;
+		void reset() { queue = new RingQueue<Integer>(); }
+		void insert(int value) { queue.insert(BOXES[value & BOX_MASK]); }
+		int remove() { return queue.remove().intValue(); }
+	}
+
+	private static class ObjectQueueOps extends QueueOps {
+		ObjectQueue queue;
+		void reset() { queue = new ObjectQueue(); }
+		void insert(int value) { queue.insert(BOXES[value & BOX_MASK]); }
+		int remove() { return ((Integer)queue.remove()).intValue(); }
+	}
+
+	// Boxed values made up front, so the object queues are not measured
+	// with the cost of boxing
+	private static final int BOX_MASK = 1023;
+	private static final Integer[] BOXES = new Integer[BOX_MASK + 1];
+	static {
+		for (int i = 0; i < BOXES.length; i++) BOXES[i] = Integer.valueOf(i);
+	}
+
+	/**
+	 * Inserts and removes one value at a time while the queue holds a
+	 * fixed number of values, so it never resizes.
+	 */
+	private static class SteadyQueue extends Benchmark {
+		QueueOps ops;
+		int depth;
+
+		SteadyQueue(String name, QueueOps ops, int depth) {
+			super(name, "ops/s");
+			this.ops = ops;
+			this.depth = depth;
+		}
+
+		void setUp() {
+			ops.reset();
+			for (int i = 0; i < depth; i++) ops.insert(i);
+		}
+
+		long invoke() {
+			long sum = 0;
+			for (int i = 0; i < QUEUE_OPS; i++) {
+				ops.insert(i);
+				sum += ops.remove();
+			}
+			sink = sum;
+			return QUEUE_OPS;
+		}
+	}
+
+	/**
+	 * Fills an empty queue and drains it again, so it grows and shrinks
+	 * through every capacity.
+	 */
+	private static class ChurnQueue extends Benchmark {
+		QueueOps ops;
+
+		ChurnQueue(String name, QueueOps ops) {
+			super(name, "ops/s");
+			this.ops = ops;
+		}
+
+		void setUp() {
+			ops.reset();
+		}
+
+		long invoke() {
+			long sum = 0;
+			for (int i = 0; i < CHURN_SIZE; i++) ops.insert(i);
+			for (int i = 0; i < CHURN_SIZE; i++) sum += ops.remove();
+			sink = sum;
+			return 2L * CHURN_SIZE;
+		}
+	}
+
+	/**
+	 * Gives the CPU a job and takes it back, the work done on every
+	 * dispatch and preemption.
+	 */
+	private static class CPUDispatch extends Benchmark {
+		JobTable table;
+		CPU cpu;
+		int[] handles;
+
+		CPUDispatch() {
+			super("dispatch.cpu", "dispatches/s");
+		}
+
+		void setUp() {
+			table = new JobTable();
+			cpu = new CPU(table, SimulationEngine.DEFAULT_QUEUE_LEVELS);
+			handles = new int[64];
+			for (int i = 0; i < handles.length; i++)
+				handles[i] = table.add(i, 0, Integer.MAX_VALUE);
+		}
+
+		long invoke() {
+			long sum = 0;
+			for (int i = 0; i < QUEUE_OPS; i++) {
+				cpu.submitJob(handles[i & 63]);
+				cpu.decClocks();
+				sum += cpu.preemptCPU();
+			}
+			sink = sum;
+			return QUEUE_OPS;
+		}
+	}
+
+	/**
+	 * Runs the engine on jobs that each need one tick and arrive one per
+	 * tick, so nearly all of the work is dispatching jobs from the queues.
+	 */
+	private static class EngineDispatch extends Benchmark {
+		EngineDispatch() {
+			super("dispatch.engine", "dispatches/s");
+		}
+
+		long invoke() {
+			DispatchCounter counter = new DispatchCounter();
+			SimulationEngine engine = new SimulationEngine(
+					new SyntheticJobSource(DISPATCH_JOBS, 0), counter);
+			engine.run();
+			sink = engine.getClock();
+			return counter.dispatches;
+		}
+	}
+
+	private static class DispatchCounter extends SimulationAdapter {
+		long dispatches;
+
+		public void onDispatch(int clock, int job, int queueLevel) {
+			dispatches++;
+		}
+	}
+
+	/**
+	 * Parses the benchmark trace with the Scanner based source.
+	 */
+	private static class ScannerParse extends Benchmark {
+		File input;
+
+		ScannerParse() {
+			super("parse.scanner", "jobs/s");
+		}
+
+		void setUp() throws IOException {
+			input = parseInput();
+		}
+
+		long invoke() throws IOException {
+			JobTable table = new JobTable();
+			Scanner scanner = new Scanner(input);
+			ScannerJobSource source = new ScannerJobSource(scanner);
+			long jobs = 0;
+			while (source.hasNextJob()) {
+				table.release(source.nextJob(table));
+				jobs++;
+			}
+			scanner.close();
+			sink = jobs;
+			return jobs;
+		}
+	}
+
+	/**
+	 * Parses the benchmark trace with the memory-mapped source.
+	 */
+	private static class MappedParse extends Benchmark {
+		File input;
+		int threads;
+
+		MappedParse(String name, int threads) {
+			super(name, "jobs/s");
+			this.threads = threads;
+		}
+
+		void setUp() throws IOException {
+			input = parseInput();
+		}
+
+		long invoke() throws IOException {
+			JobTable table = new JobTable();
+			long jobs = 0;
+			MappedJobSource source = new MappedJobSource(input.toPath(), threads);
+			try {
+				while (source.hasNextJob()) {
+					table.release(source.nextJob(table));
+					jobs++;
+				}
+			} finally {
+				source.close();
+			}
+			sink = jobs;
+			return jobs;
+		}
+	}
+
+	/**
+	 * Runs the whole simulation on a synthetic trace and counts the
+	 * simulated ticks.
+	 */
+	private static class EndToEnd extends Benchmark {
+		long numJobs;
+
+		EndToEnd(long numJobs) {
+			super("engine.ticks." + numJobs, "ticks/s");
+			this.numJobs = numJobs;
+		}
+
+		long invoke() {
+			SimulationEngine engine = new SimulationEngine(
+					new SyntheticJobSource(numJobs, 1), new SimulationAdapter() {});
+			SimulationStats stats = engine.run();
+			sink = stats.getTotalJobs();
+			return engine.getClock();
+		}
+	}
+
+	/**
+	 * Makes up a repeatable trace of jobs without reading any file. With a
+	 * spread of 0 every job needs one tick and arrives one tick after the
+	 * last. Otherwise jobs arrive 1 to 16 ticks apart and need 1 to 15
+	 * ticks, which keeps the CPU busy most of the time without the queues
+	 * growing without end.
+	 */
+	private static class SyntheticJobSource implements JobSource {
+		long remaining;
+		int spread;
+		int arrival;
+		int pid;
+		long seed;
+
+		SyntheticJobSource(long numJobs, int spread) {
+			remaining = numJobs;
+			this.spread = spread;
+			arrival = 0;
+			pid = 0;
+			seed = 42;
+		}
+
+		public boolean hasNextJob() {
+			return remaining > 0;
+		}
+
+		public int nextJob(JobTable table) {
+			remaining--;
+			pid++;
+			if (spread == 0) {
+				arrival++;
+				return table.add(pid, arrival, 1);
+			}
+			seed = seed * 6364136223846793005L + 1442695040888963407L;
+			int bits = (int)(seed >>> 33);
+			arrival += 1 + (bits & 15);
+			return table.add(pid, arrival, 1 + ((bits >>> 4) & 7) +
+					((bits >>> 7) & 7));
+		}
+	}
+}
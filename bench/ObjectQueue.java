@@ -1,5 +1,5 @@
 
-public class ObjectQueue implements ObjectQueueInterface {
+public class ObjectQueue implements ObjectQueueInterface<Object> {
     private Object[] items;
     private int front;
     private int rear;
@@ -20,6 +20,10 @@ public class ObjectQueue implements ObjectQueueInterface {
         return count == items.length;
     }
     
+    public int size() {
+        return count;
+    }
+    
     public void clear() {
         items = new Object[4];
         front = 0;
@@ -0,0 +1,9 @@
+public interface ObjectQueueInterface<T> {
+    public boolean isEmpty();
+    public boolean isFull();
+    public int size();
+    public void clear();
+    public void insert(T o);
+    public T remove();
+    public T query();
+}
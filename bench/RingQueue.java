@@ -0,0 +1,136 @@
+
+/**
+ * Generic queue kept in a ring buffer whose capacity is always a power of
+ * two, so positions wrap around with a mask instead of a division. The
+ * buffer doubles when full and halves only once it is mostly empty, which
+ * keeps it from resizing back and forth under bursty use.
+ *
+ * The simulation queues job handles in IntRingQueue; this queue and
+ * ObjectQueue are kept here to benchmark against it.
+ */
+public class RingQueue<T> implements ObjectQueueInterface<T> {
+
+// ---------- Field members
+
+	public static final int DEFAULT_MIN_CAPACITY = 16;
+	public static final int DEFAULT_SHRINK_DIVISOR = 8;
+
+	private Object[] items;
+	private int front, count, mask;
+	private int minCapacity, shrinkDivisor;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a queue with the default minimum capacity and shrink
+	 * divisor.
+	 */
+	public RingQueue() {
+		this(DEFAULT_MIN_CAPACITY, DEFAULT_SHRINK_DIVISOR);
+	}
+
+	/**
+	 * Creates a queue that never holds a buffer smaller than the given
+	 * capacity and halves its buffer only once fewer than
+	 * 1/shrinkDivisor of it is in use.
+	 * @param minCapacity Smallest buffer size, rounded up to a power of two
+	 * @param shrinkDivisor Fill ratio divisor for shrinking, at least 4
+	 */
+	public RingQueue(int minCapacity, int shrinkDivisor) {
+		if (minCapacity < 1 || minCapacity > 1 << 30)
+			throw new IllegalArgumentException(
+					"Minimum capacity must be from 1 to 2^30");
+		if (shrinkDivisor < 4)
+			throw new IllegalArgumentException(
+					"Shrink divisor must be at least 4");
+		this.minCapacity = IntRingQueue.powerOfTwo(minCapacity);
+		this.shrinkDivisor = shrinkDivisor;
+		clear();
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	public boolean isFull() {
+		return count == items.length;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public void clear() {
+		items = new Object[minCapacity];
+		mask = minCapacity - 1;
+		front = 0;
+		count = 0;
+	}
+
+	public void insert(T o) {
+		if (isFull())
+			resize(2 * items.length);
+
+		items[(front + count) & mask] = o;
+		count++;
+	}
+
+	public T remove() {
+		if (isEmpty())
+			return null;
+
+		T fItem = itemAt(front);
+		items[front] = null;
+		front = (front + 1) & mask;
+		count--;
+
+		if (items.length > minCapacity && count < items.length / shrinkDivisor)
+			resize(items.length / 2);
+		return fItem;
+	}
+
+	public T query() {
+		if (isEmpty())
+			return null;
+		return itemAt(front);
+	}
+
+	/**
+	 * Returns the buffer size that the queue currently holds.
+	 * @return Capacity of the buffer
+	 */
+	public int capacity() {
+		return items.length;
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Returns the item at the given buffer position.
+	 * @param index Position in the buffer
+	 * @return Item at the position
+	 */
+	@SuppressWarnings("unchecked")
+	private T itemAt(int index) {
+		return (T)items[index];
+	}
+
+	/**
+	 * Moves the items into a new buffer of the given size, starting at the
+	 * front of the buffer.
+	 * @param size New buffer size, a power of two
+	 */
+	private void resize(int size) {
+		Object[] newQueue = new Object[size];
+
+		int firstPart = Math.min(count, items.length - front);
+		System.arraycopy(items, front, newQueue, 0, firstPart);
+		System.arraycopy(items, 0, newQueue, firstPart, count - firstPart);
+
+		front = 0;
+		mask = size - 1;
+		items = newQueue;
+	}
+}
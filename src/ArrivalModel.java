@@ -0,0 +1,33 @@
+import java.util.SplittableRandom;
+
+/**
+ * Decides when the jobs of a generated workload arrive. Arrival times are
+ * worked out as real numbers and only rounded down to ticks by the
+ * WorkloadGenerator, so a model can have more than one arrival per tick.
+ *
+ * A model may keep state between calls, such as the phase of a bursty
+ * process, so one model belongs to one generator.
+ */
+public abstract class ArrivalModel {
+
+// ---------- Public methods
+
+	/**
+	 * Returns the arrival time of the next job.
+	 * @param now Arrival time of the previous job, 0 for the first
+	 * @param random Random numbers of the generator
+	 * @return Arrival time of the next job, not before now
+	 */
+	public abstract double nextArrival(double now, SplittableRandom random);
+
+	/**
+	 * Draws from an exponential distribution. Also used by the service
+	 * models.
+	 * @param random Random numbers of the generator
+	 * @param mean Mean of the distribution
+	 * @return Random number of the distribution
+	 */
+	static double exponential(SplittableRandom random, double mean) {
+		return -mean * Math.log(1.0 - random.nextDouble());
+	}
+}
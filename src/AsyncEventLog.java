@@ -0,0 +1,294 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the event table and final statistics of a simulation on a
+ * background thread. The simulation thread only copies the numbers of an
+ * event into a bounded ring buffer, and the writer thread formats each row
+ * once and writes it to the console and file outputs. Either output may be
+ * left out to turn it off.
+ *
+ * The buffer has one producer, the simulation thread, and one consumer,
+ * the writer thread. When it is full the simulation waits for the writer
+ * to catch up. The outputs are only flushed at the end, on sync(), and
+ * when the writer has nothing to do and has not flushed for FLUSH_NANOS,
+ * so rows of a slow simulation still show up soon.
+ *
+ * The file output is ASCII, so its length in bytes is the number of
+ * characters written to it. sync() gives that length at an exact point of
+ * the simulation, so a checkpoint can record where the file is to be cut
+ * off and continued when the simulation is resumed.
+ */
+public class AsyncEventLog extends SimulationAdapter {
+
+// ---------- Field members
+
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+	private static final int ARRIVAL = 0;
+	private static final int DEPARTURE = 1;
+	// How long the writer sleeps when there is nothing to write
+	private static final long IDLE_NANOS = 200000;
+	// Rows gathered before they are handed to the outputs
+	private static final int BATCH_CHARS = 1 << 14;
+	// Longest time written rows are left in the outputs' buffers
+	private static final long FLUSH_NANOS = 100000000L;
+
+	private Writer console, file;
+	private JobTable jobs;
+	private Thread writer;
+
+	// Ring buffer of events, one column per field of an event
+	private int[] type, clock, pid, value, llq;
+	private int mask;
+	// Next slot the writer reads and the next slot the simulation fills
+	private volatile long head, tail;
+	private long cachedHead;
+
+	private volatile boolean finished;
+	private volatile Throwable error;
+	private SimulationStats finalStats;
+
+	// Length of the file output, and that length when last synced
+	private long fileLength;
+	private boolean unflushed;
+	private long lastFlush;
+	private volatile long syncedLength;
+	private volatile boolean syncRequested;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a log with the default buffer capacity.
+	 * @param console Console output or null to leave it out
+	 * @param file File output or null to leave it out
+	 */
+	public AsyncEventLog(Writer console, Writer file) {
+		this(console, file, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a log that buffers up to the given number of events.
+	 * @param console Console output or null to leave it out
+	 * @param file File output or null to leave it out
+	 * @param capacity Number of buffered events, rounded up to a power of two
+	 */
+	public AsyncEventLog(Writer console, Writer file, int capacity) {
+		this.console = console;
+		this.file = file;
+		capacity = IntRingQueue.powerOfTwo(Math.max(capacity, 2));
+		type = new int[capacity];
+		clock = new int[capacity];
+		pid = new int[capacity];
+		value = new int[capacity];
+		llq = new int[capacity];
+		mask = capacity - 1;
+		head = 0;
+		tail = 0;
+		cachedHead = 0;
+		finished = false;
+		fileLength = 0;
+	}
+
+	/**
+	 * Continues a file output that already holds the events of an earlier
+	 * run, header included. The header is then only written to the
+	 * console. Must be called before the simulation starts.
+	 * @param length Length of the file output in bytes
+	 */
+	public void setFileLength(long length) {
+		fileLength = length;
+	}
+
+	/**
+	 * Waits until every event so far has been written and flushed, and
+	 * returns the length of the file output. Must be called on the
+	 * simulation thread between steps.
+	 * @return Length of the file output in bytes
+	 */
+	public long sync() {
+		syncRequested = true;
+		LockSupport.unpark(writer);
+		while (syncRequested) {
+			if (error != null)
+				throw new IllegalStateException(
+						"Event log could not be written", error);
+			Thread.yield();
+		}
+		return syncedLength;
+	}
+
+	/**
+	 * Starts the writer thread, which begins with the header.
+	 */
+	public void onStart(JobTable jobs) {
+		this.jobs = jobs;
+		writer = new Thread(new Runnable() {
+			public void run() {
+				writeEvents();
+			}
+		}, "AsyncEventLog writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	public void onArrival(int clock, int job) {
+		publish(ARRIVAL, clock, jobs.getPID(job), jobs.getTimeRequired(job),
+				EventFormatter.NO_VALUE);
+	}
+
+	public void onDeparture(int clock, int job) {
+		publish(DEPARTURE, clock, jobs.getPID(job),
+				jobs.getTimeInSystem(job) - jobs.getArrivalTime(job),
+				jobs.getCurrentQueue(job) + 1);
+	}
+
+	/**
+	 * Hands the statistics to the writer thread and waits until everything
+	 * has been written and flushed.
+	 */
+	public void onFinish(SimulationStats stats) {
+		finalStats = stats;
+		finished = true;
+		LockSupport.unpark(writer);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (error != null)
+			throw new IllegalStateException("Event log could not be written",
+											error);
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Copies an event into the next slot of the buffer, waiting for the
+	 * writer if the buffer is full.
+	 */
+	private void publish(int eventType, int sysTime, int eventPID,
+						 int eventValue, int eventLLQ) {
+		long t = tail;
+		if (t - cachedHead > mask) {
+			cachedHead = head;
+			while (t - cachedHead > mask) {
+				if (error != null)
+					throw new IllegalStateException(
+							"Event log could not be written", error);
+				LockSupport.unpark(writer);
+				Thread.yield();
+				cachedHead = head;
+			}
+		}
+		int slot = (int)t & mask;
+		type[slot] = eventType;
+		clock[slot] = sysTime;
+		pid[slot] = eventPID;
+		value[slot] = eventValue;
+		llq[slot] = eventLLQ;
+		tail = t + 1;
+	}
+
+	/**
+	 * Main loop of the writer thread. Formats and writes events until the
+	 * simulation is finished and the buffer is empty, then writes the
+	 * statistics.
+	 */
+	private void writeEvents() {
+		StringBuilder sb = new StringBuilder(2 * BATCH_CHARS);
+		lastFlush = System.nanoTime();
+		try {
+			if (fileLength == 0) {
+				write(EventFormatter.header());
+			} else if (console != null) {
+				console.append(EventFormatter.header());
+				unflushed = true;
+			}
+			while (true) {
+				// Read the flags before the tail, so a finished or synced
+				// simulation has all of its events visible
+				boolean sync = syncRequested;
+				boolean done = finished;
+				long t = tail;
+				long h = head;
+				if (h == t) {
+					if (done) break;
+					if (sync) {
+						flush();
+						syncedLength = fileLength;
+						syncRequested = false;
+					} else if (unflushed &&
+							   System.nanoTime() - lastFlush >= FLUSH_NANOS) {
+						flush();
+					}
+					LockSupport.parkNanos(IDLE_NANOS);
+					continue;
+				}
+
+				sb.setLength(0);
+				for (; h < t; h++) {
+					int slot = (int)h & mask;
+					if (type[slot] == ARRIVAL)
+						EventFormatter.appendArrival(sb, clock[slot],
+								pid[slot], value[slot]);
+					else
+						EventFormatter.appendDeparture(sb, clock[slot],
+								pid[slot], value[slot], llq[slot]);
+					if (sb.length() >= BATCH_CHARS) {
+						head = h + 1;
+						write(sb);
+						sb.setLength(0);
+					}
+				}
+				head = t;
+				write(sb);
+			}
+
+			if (console != null) {
+				sb.setLength(0);
+				EventFormatter.appendStats(sb, finalStats, false);
+				sb.append(EventFormatter.closing());
+				console.append(sb);
+			}
+			if (file != null) {
+				sb.setLength(0);
+				EventFormatter.appendStats(sb, finalStats, true);
+				file.append(sb);
+			}
+			flush();
+
+		} catch (Throwable e) {
+			// Kept for the simulation thread, which would otherwise wait
+			// forever on a full buffer
+			error = e;
+		}
+	}
+
+	/**
+	 * Writes the given text to every output that is turned on.
+	 * @param text Text to be written
+	 * @throws IOException Output could not be written
+	 */
+	private void write(CharSequence text) throws IOException {
+		unflushed = true;
+		if (console != null) console.append(text);
+		if (file != null) {
+			file.append(text);
+			fileLength += text.length();
+		}
+	}
+
+	/**
+	 * Flushes every output that is turned on.
+	 * @throws IOException Output could not be flushed
+	 */
+	private void flush() throws IOException {
+		if (console != null) console.flush();
+		if (file != null) file.flush();
+		unflushed = false;
+		lastFlush = System.nanoTime();
+	}
+}
@@ -0,0 +1,39 @@
+import java.util.SplittableRandom;
+
+/**
+ * CPU times that fall into two groups, such as short interactive jobs
+ * mixed with long batch jobs. Each group is exponentially distributed
+ * around its own average.
+ */
+public class BimodalService extends ServiceModel {
+
+// ---------- Field members
+
+	private double shortFraction;
+	private double shortMean, longMean;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a mix of short and long CPU times.
+	 * @param shortFraction Share of short jobs from 0 to 1
+	 * @param shortMean Average CPU time of short jobs in ticks
+	 * @param longMean Average CPU time of long jobs in ticks
+	 */
+	public BimodalService(double shortFraction, double shortMean,
+						  double longMean) {
+		if (shortFraction < 0 || shortFraction > 1)
+			throw new IllegalArgumentException("Fraction must be from 0 to 1");
+		if (!(shortMean > 0) || !(longMean > 0))
+			throw new IllegalArgumentException("Means must be positive");
+		this.shortFraction = shortFraction;
+		this.shortMean = shortMean;
+		this.longMean = longMean;
+	}
+
+	public int nextServiceTime(SplittableRandom random) {
+		double mean = random.nextDouble() < shortFraction ? shortMean : longMean;
+		return toTicks(ArrivalModel.exponential(random, mean));
+	}
+}
@@ -0,0 +1,185 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads back a trace written by BinaryTraceWriter one event at a time.
+ * Call next() to move to the next event and read it through the getters.
+ * Once next() returns false, the final statistics are available from
+ * getStats().
+ */
+public class BinaryTraceReader implements Closeable {
+
+// ---------- Field members
+
+	private InputStream in;
+	private byte[] buffer;
+	private int pos, limit;
+
+	private int type, clock, pid, value, llq;
+	private SimulationStats stats;
+
+
+// ---------- Public methods
+
+	/**
+	 * Opens a trace from the given stream and checks its header. The
+	 * stream is closed when the reader is closed.
+	 * @param in Stream holding the trace
+	 * @throws IOException Stream could not be read or is not a trace
+	 */
+	public BinaryTraceReader(InputStream in) throws IOException {
+		this.in = in;
+		buffer = new byte[1 << 16];
+		pos = 0;
+		limit = 0;
+
+		for (byte b : BinaryTraceWriter.MAGIC) {
+			if (getByte() != (b & 0xFF))
+				throw new IOException("Not an MFQ trace");
+		}
+		int version = getByte();
+		if (version != BinaryTraceWriter.VERSION)
+			throw new IOException("Unsupported trace version " + version);
+	}
+
+	/**
+	 * Moves to the next event of the trace.
+	 * @return There was another event or the trace has ended
+	 * @throws IOException Stream could not be read or was cut off
+	 */
+	public boolean next() throws IOException {
+		if (stats != null) return false;
+
+		int tag = getByte();
+		type = tag & 0x7;
+		if (type == BinaryTraceWriter.END) {
+			long totalJobs = getVarLong();
+			long totalJobTime = getVarLong();
+			long idleTime = getVarLong();
+			double resp = getDouble();
+			double wait = getDouble();
+			double ta = getDouble();
+			double throughput = getDouble();
+			stats = new SimulationStats(totalJobs, totalJobTime, idleTime,
+										resp, wait, ta, throughput);
+			return false;
+		}
+
+		int delta = tag >>> 3;
+		if (delta == BinaryTraceWriter.DELTA_ESCAPE)
+			delta += (int)getVarLong();
+		clock += delta;
+		int zigzag = (int)getVarLong();
+		pid += (zigzag >>> 1) ^ -(zigzag & 1);
+
+		value = (int)getVarLong();
+		llq = type == BinaryTraceWriter.DEPARTURE ? (int)getVarLong() : 0;
+		return true;
+	}
+
+	/**
+	 * Returns the type of the current event, one of the event constants of
+	 * BinaryTraceWriter.
+	 * @return Event type
+	 */
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the system time of the current event.
+	 * @return System time
+	 */
+	public int getClock() {
+		return clock;
+	}
+
+	/**
+	 * Returns the process ID of the job of the current event.
+	 * @return Job's process ID
+	 */
+	public int getPID() {
+		return pid;
+	}
+
+	/**
+	 * Returns the number that comes with the current event: the CPU time
+	 * needed of an ARRIVAL, the queue of a DISPATCH or PREEMPT and the
+	 * total time in system of a DEPARTURE.
+	 * @return Event value
+	 */
+	public int getValue() {
+		return value;
+	}
+
+	/**
+	 * Returns the last queue of a DEPARTURE, counting from 1.
+	 * @return Last queue of the job
+	 */
+	public int getLastQueue() {
+		return llq;
+	}
+
+	/**
+	 * Returns the final statistics once the trace has been read to its
+	 * end.
+	 * @return Final statistics or null if the end was not reached yet
+	 */
+	public SimulationStats getStats() {
+		return stats;
+	}
+
+	public void close() throws IOException {
+		in.close();
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Reads an unsigned number written 7 bits at a time.
+	 * @return Number that was read
+	 * @throws IOException Stream could not be read
+	 */
+	private long getVarLong() throws IOException {
+		long result = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = getByte();
+			result |= (long)(b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return result;
+		}
+		throw new IOException("Malformed varint in trace");
+	}
+
+	/**
+	 * Reads the 8 bytes of a double, high bytes first.
+	 * @return Number that was read
+	 * @throws IOException Stream could not be read
+	 */
+	private double getDouble() throws IOException {
+		long bits = 0;
+		for (int i = 0; i < 8; i++) {
+			bits = (bits << 8) | getByte();
+		}
+		return Double.longBitsToDouble(bits);
+	}
+
+	/**
+	 * Reads the next byte of the trace, refilling the buffer as needed.
+	 * @return Byte from 0 to 255
+	 * @throws IOException Stream could not be read or ended early
+	 */
+	private int getByte() throws IOException {
+		if (pos == limit) {
+			limit = in.read(buffer, 0, buffer.length);
+			pos = 0;
+			if (limit <= 0) {
+				limit = 0;
+				throw new EOFException("Trace ended before its END tag");
+			}
+		}
+		return buffer[pos++] & 0xFF;
+	}
+}
@@ -0,0 +1,244 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the events of a simulation in a compact binary trace format that
+ * BinaryTraceReader reads back.
+ *
+ * The trace starts with the magic bytes "MFQT" and a version byte. Every
+ * event is then one tag byte followed by varints:
+ * <ul>
+ * <li>The low 3 bits of the tag are the event type and the high 5 bits
+ * the clock difference to the previous event. A difference of 31 or more
+ * is stored as 31 followed by a varint of the rest.</li>
+ * <li>A zigzag varint of the PID difference to the previous event.</li>
+ * <li>ARRIVAL: CPU time needed. DISPATCH: queue taken from. PREEMPT: queue
+ * moved to. DEPARTURE: total time in system and last queue.</li>
+ * </ul>
+ * The trace ends with an END tag followed by the final statistics.
+ *
+ * Since events are stored as differences to the previous event, a trace
+ * cut off at some event can only be continued from the clock and PID of
+ * that event. sync() gives the length of the trace and getLastClock() and
+ * getLastPID() give those, so a checkpoint can record them.
+ */
+public class BinaryTraceWriter extends SimulationAdapter implements Closeable {
+
+// ---------- Field members
+
+	public static final int ARRIVAL = 0;
+	public static final int DISPATCH = 1;
+	public static final int PREEMPT = 2;
+	public static final int DEPARTURE = 3;
+	public static final int END = 7;
+
+	static final byte[] MAGIC = { 'M', 'F', 'Q', 'T' };
+	static final int VERSION = 1;
+	static final int DELTA_ESCAPE = 31;
+
+	private OutputStream out;
+	private JobTable jobs;
+	private byte[] buffer;
+	private int count;
+	private long length; // Bytes put, buffered or not
+	private int lastClock, lastPID;
+	private IOException error;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a trace writer for the given stream. The stream is closed
+	 * when the writer is closed.
+	 * @param out Stream the trace is written to
+	 */
+	public BinaryTraceWriter(OutputStream out) {
+		this(out, 0, 0, 0);
+	}
+
+	/**
+	 * Creates a trace writer that continues a trace cut off after some
+	 * event, as recorded by a checkpoint. The stream is closed when the
+	 * writer is closed.
+	 * @param out Stream positioned at the end of the trace so far
+	 * @param length Length of the trace so far, 0 for a new trace
+	 * @param lastClock System time of the last event of the trace
+	 * @param lastPID Process ID of the last event of the trace
+	 */
+	public BinaryTraceWriter(OutputStream out, long length, int lastClock,
+							 int lastPID) {
+		this.out = out;
+		buffer = new byte[1 << 16];
+		count = 0;
+		this.length = length;
+		this.lastClock = lastClock;
+		this.lastPID = lastPID;
+	}
+
+	/**
+	 * Writes the header of a new trace.
+	 */
+	public void onStart(JobTable jobs) {
+		this.jobs = jobs;
+		if (length > 0) return;
+		for (byte b : MAGIC) putByte(b);
+		putByte(VERSION);
+	}
+
+	public void onArrival(int clock, int job) {
+		putEvent(ARRIVAL, clock, jobs.getPID(job));
+		putVarLong(jobs.getTimeRequired(job));
+	}
+
+	public void onDispatch(int clock, int job, int queueLevel) {
+		putEvent(DISPATCH, clock, jobs.getPID(job));
+		putVarLong(queueLevel);
+	}
+
+	public void onPreempt(int clock, int job) {
+		putEvent(PREEMPT, clock, jobs.getPID(job));
+		putVarLong(jobs.getCurrentQueue(job));
+	}
+
+	public void onDeparture(int clock, int job) {
+		putEvent(DEPARTURE, clock, jobs.getPID(job));
+		putVarLong(jobs.getTimeInSystem(job) - jobs.getArrivalTime(job));
+		putVarLong(jobs.getCurrentQueue(job) + 1);
+	}
+
+	/**
+	 * Writes the END tag and the final statistics, then flushes the trace.
+	 */
+	public void onFinish(SimulationStats stats) {
+		putByte(END);
+		putVarLong(stats.getTotalJobs());
+		putVarLong(stats.getTotalJobTime());
+		putVarLong(stats.getCPUIdleTime());
+		putDouble(stats.getAvgResponseTime());
+		putDouble(stats.getAvgWaitingTime());
+		putDouble(stats.getAvgTurnaroundTime());
+		putDouble(stats.getThroughput());
+		drain();
+		try {
+			out.flush();
+		} catch (IOException e) {
+			if (error == null) error = e;
+		}
+		if (error != null)
+			throw new IllegalStateException("Trace could not be written", error);
+	}
+
+	/**
+	 * Writes out and flushes every event so far. Must be called on the
+	 * simulation thread between steps.
+	 * @return Length of the trace in bytes
+	 * @throws IOException Trace could not be written
+	 */
+	public long sync() throws IOException {
+		drain();
+		if (error != null) throw error;
+		out.flush();
+		return length;
+	}
+
+	/**
+	 * Returns the system time of the last event written.
+	 * @return System clock of the last event, 0 if none
+	 */
+	public int getLastClock() {
+		return lastClock;
+	}
+
+	/**
+	 * Returns the process ID of the last event written.
+	 * @return Process ID of the last event, 0 if none
+	 */
+	public int getLastPID() {
+		return lastPID;
+	}
+
+	/**
+	 * Writes out what is left in the buffer and closes the stream.
+	 * @throws IOException Stream could not be written or closed
+	 */
+	public void close() throws IOException {
+		drain();
+		out.close();
+		if (error != null) throw error;
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Writes the tag, clock difference and PID difference of an event.
+	 * @param type Event type
+	 * @param clock System time of the event
+	 * @param pid Process ID of the job
+	 */
+	private void putEvent(int type, int clock, int pid) {
+		int delta = clock - lastClock;
+		if (delta < DELTA_ESCAPE) {
+			putByte(type | delta << 3);
+		} else {
+			putByte(type | DELTA_ESCAPE << 3);
+			putVarLong(delta - DELTA_ESCAPE);
+		}
+		int pidDelta = pid - lastPID;
+		putVarLong(((pidDelta << 1) ^ (pidDelta >> 31)) & 0xFFFFFFFFL);
+		lastClock = clock;
+		lastPID = pid;
+	}
+
+	/**
+	 * Writes an unsigned number 7 bits at a time, low bits first.
+	 * Negative numbers are written as 10 bytes.
+	 * @param value Number to be written
+	 */
+	private void putVarLong(long value) {
+		while ((value & ~0x7FL) != 0) {
+			putByte((int)(value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		putByte((int)value);
+	}
+
+	/**
+	 * Writes the 8 bytes of a double, high bytes first.
+	 * @param value Number to be written
+	 */
+	private void putDouble(double value) {
+		long bits = Double.doubleToLongBits(value);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			putByte((int)(bits >>> shift));
+		}
+	}
+
+	/**
+	 * Puts a byte into the buffer, writing the buffer out when full.
+	 * @param b Byte to be written
+	 */
+	private void putByte(int b) {
+		if (count == buffer.length) drain();
+		buffer[count++] = (byte)b;
+		length++;
+	}
+
+	/**
+	 * Writes the buffer to the stream. Errors are kept until the end of
+	 * the simulation since listeners cannot throw them.
+	 */
+	private void drain() {
+		if (count == 0 || error != null) {
+			count = 0;
+			return;
+		}
+		try {
+			out.write(buffer, 0, count);
+		} catch (IOException e) {
+			error = e;
+		}
+		count = 0;
+	}
+}
@@ -3,20 +3,53 @@ public class CPU {
 
 // ---------- Field members
 	
-	private Job currentJob;
+	private JobTable jobs;
+	private int currentJob;
 	private int quantumClock;
 	private boolean isBusy;
+	private int numLevels;
+	private int[] quantum;
 
 	
 // ---------- Public methods
 	
 	/**
 	 * Initializes needed variables for the class.
+	 * @param jobs Table that holds the jobs given to the CPU
+	 * @param numLevels Number of queue levels that jobs can be preempted to
 	 */
-	public CPU() {
+	public CPU(JobTable jobs, int numLevels) {
+		this.jobs = jobs;
 		quantumClock = 0;
 		isBusy = false;
-		currentJob = null;
+		currentJob = JobTable.NONE;
+		this.numLevels = numLevels;
+		
+		// Quantum doubles with every level, starting at 2
+		quantum = new int[numLevels];
+		for (int level = 0; level < numLevels; level++)
+			quantum[level] = (int)Math.pow(2, level + 1);
+	}
+	
+	/**
+	 * Returns the quantum that jobs from the given queue level get.
+	 * @param level Queue level
+	 * @return Quantum in ticks
+	 */
+	public int getQuantum(int level) {
+		return quantum[level];
+	}
+	
+	/**
+	 * Sets the quantum that jobs from the given queue level get. A job
+	 * already on the CPU keeps the quantum it was given.
+	 * @param level Queue level
+	 * @param ticks Quantum in ticks, at least 1
+	 */
+	public void setQuantum(int level, int ticks) {
+		if (ticks < 1)
+			throw new IllegalArgumentException("Quantum must be at least 1");
+		quantum[level] = ticks;
 	}
 	
 	/**
@@ -33,8 +66,8 @@ public class CPU {
 	 * @return Job is finished or not
 	 */
 	public boolean jobFinished() {
-		if (currentJob != null)
-			return currentJob.getTimeRemaining() == 0;
+		if (currentJob != JobTable.NONE)
+			return jobs.getTimeRemaining(currentJob) == 0;
 		else
 			return false;
 	}
@@ -44,29 +77,62 @@ public class CPU {
 	 * @return CPU quantum clock is finished or not
 	 */
 	public boolean quantumClockDone() {
-		if (currentJob != null)
+		if (currentJob != JobTable.NONE)
 			return quantumClock == 0;
 		else
 			return false;
 	}
 	
+	/**
+	 * Returns the number of ticks until the CPU next has to act on its job,
+	 * which is whichever comes first of the job finishing and the quantum
+	 * clock running out.
+	 * @return Ticks until the job leaves the CPU or 0 if the CPU is idle
+	 */
+	public int ticksUntilRelease() {
+		if (currentJob != JobTable.NONE)
+			return Math.min(quantumClock, jobs.getTimeRemaining(currentJob));
+		else
+			return 0;
+	}
+	
+	/**
+	 * Returns the ticks left of the quantum of the current job.
+	 * @return CPU quantum clock
+	 */
+	public int getQuantumClock() {
+		return quantumClock;
+	}
+	
+	/**
+	 * Puts a job back on the CPU with the quantum it had left, such as when
+	 * a saved simulation is resumed.
+	 * @param job Handle of the job or JobTable.NONE to leave the CPU idle
+	 * @param quantumClock Ticks left of the job's quantum
+	 */
+	public void resume(int job, int quantumClock) {
+		currentJob = job;
+		this.quantumClock = job == JobTable.NONE ? 0 : quantumClock;
+		isBusy = job != JobTable.NONE;
+	}
+	
 	/**
 	 * Returns the job that is currently on the CPU.
-	 * @return Current job or null if none
+	 * @return Handle of the current job or JobTable.NONE if none
 	 */
-	public Job peekCPU() {
+	public int peekCPU() {
 		return currentJob;
 	}
 	
 	/**
-	 * Forces the job out of the CPU and returns the job object. Also
+	 * Forces the job out of the CPU and returns the job handle. Also
 	 * increments the job's queue level. Resets busy flag.
-	 * @return The job that was preempted
+	 * @return Handle of the job that was preempted
 	 */
-	public Job preemptCPU() {
-		Job temp = currentJob;
-		temp.incCurrentQueue();
-		currentJob = null;
+	public int preemptCPU() {
+		int temp = currentJob;
+		jobs.incCurrentQueue(temp, numLevels);
+		currentJob = JobTable.NONE;
 		isBusy = false;
 		quantumClock = 0;
 		return temp;
@@ -77,14 +143,14 @@ public class CPU {
 	 * preemptCPU() in that it will clock the job out of the system and
 	 * does not increment the job's queue level. Resets busy flag.
 	 * @param clockTime
-	 * @return The job that has finished
+	 * @return Handle of the job that has finished
 	 */
-	public Job clearCPU(int clockTime) {
-		Job temp = currentJob;
-		currentJob = null;
+	public int clearCPU(int clockTime) {
+		int temp = currentJob;
+		currentJob = JobTable.NONE;
 		isBusy = false;
 		quantumClock = 0;
-		temp.setTimeInSystem(clockTime);
+		jobs.setTimeInSystem(temp, clockTime);
 		return temp;
 	}
 	
@@ -94,18 +160,28 @@ public class CPU {
 	 */
 	public void decClocks() {
 		quantumClock--;
-		currentJob.decTimeRemaining();
+		jobs.decTimeRemaining(currentJob, 1);
+	}
+	
+	/**
+	 * Handles decrementing the CPU quantum and the time remaining of the
+	 * job that resides in the CPU by several ticks at once.
+	 * @param ticks Number of ticks that have passed
+	 */
+	public void decClocks(int ticks) {
+		quantumClock -= ticks;
+		jobs.decTimeRemaining(currentJob, ticks);
 	}
 	
 	/**
 	 * Adds a job into the CPU to be processed. Sets the CPU quantum to the
 	 * appropriate amount of time according to the queue the job was in.
 	 * Also sets the busy flag of the CPU.
-	 * @param job Job to be processed in the CPU
+	 * @param job Handle of the job to be processed in the CPU
 	 */
-	public void submitJob(Job job) {
+	public void submitJob(int job) {
 		currentJob = job;
-		quantumClock = (int)Math.pow(2,currentJob.getCurrentQueue() + 1);
+		quantumClock = quantum[jobs.getCurrentQueue(currentJob)];
 		isBusy = true;
 	}
 }
@@ -0,0 +1,167 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes text to a file through a FileChannel with one large buffer, so
+ * the file is written in a few big blocks instead of many small ones.
+ * Text is written as UTF-8.
+ */
+public class ChannelWriter extends Writer {
+
+// ---------- Field members
+
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	private FileChannel channel;
+	private ByteBuffer buffer;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates or truncates the given file with the default buffer size.
+	 * @param file File to be written
+	 * @throws IOException File could not be opened
+	 */
+	public ChannelWriter(Path file) throws IOException {
+		this(file, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates or truncates the given file.
+	 * @param file File to be written
+	 * @param bufferSize Size of the buffer in bytes, at least 16
+	 * @throws IOException File could not be opened
+	 */
+	public ChannelWriter(Path file, int bufferSize) throws IOException {
+		if (bufferSize < 16)
+			throw new IllegalArgumentException("Buffer must be at least 16 bytes");
+		channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		buffer = ByteBuffer.allocateDirect(bufferSize);
+	}
+
+	/**
+	 * Opens the given file to go on writing after its first bytes, which
+	 * are kept. Anything after them is cut off.
+	 * @param file File to be written
+	 * @param length Number of bytes of the file to keep
+	 * @throws IOException File could not be opened or is shorter than that
+	 */
+	public ChannelWriter(Path file, long length) throws IOException {
+		channel = openAt(file, length);
+		buffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Opens a file for writing after its first bytes, cutting off the
+	 * rest.
+	 * @param file File to be opened
+	 * @param length Number of bytes of the file to keep
+	 * @return Channel positioned after those bytes
+	 * @throws IOException File could not be opened or is shorter than that
+	 */
+	public static FileChannel openAt(Path file, long length)
+			throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+		try {
+			if (channel.size() < length)
+				throw new IOException(file + " is shorter than the " +
+						length + " bytes it should hold");
+			channel.truncate(length);
+			channel.position(length);
+			return channel;
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public void write(int c) throws IOException {
+		if (c < 0x80) {
+			if (!buffer.hasRemaining()) drain();
+			buffer.put((byte)c);
+		} else {
+			write(String.valueOf((char)c));
+		}
+	}
+
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		for (int i = off; i < off + len; i++) {
+			char c = cbuf[i];
+			if (c < 0x80) {
+				if (!buffer.hasRemaining()) drain();
+				buffer.put((byte)c);
+			} else {
+				putEncoded(new String(cbuf, i, 1));
+			}
+		}
+	}
+
+	public void write(String str, int off, int len) throws IOException {
+		for (int i = off; i < off + len; i++) {
+			char c = str.charAt(i);
+			if (c < 0x80) {
+				if (!buffer.hasRemaining()) drain();
+				buffer.put((byte)c);
+			} else {
+				putEncoded(str.substring(i, i + 1));
+			}
+		}
+	}
+
+	public Writer append(CharSequence csq) throws IOException {
+		for (int i = 0; i < csq.length(); i++) {
+			char c = csq.charAt(i);
+			if (c < 0x80) {
+				if (!buffer.hasRemaining()) drain();
+				buffer.put((byte)c);
+			} else {
+				putEncoded(String.valueOf(c));
+			}
+		}
+		return this;
+	}
+
+	public void flush() throws IOException {
+		drain();
+	}
+
+	public void close() throws IOException {
+		if (!channel.isOpen()) return;
+		drain();
+		channel.close();
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Puts a non-ASCII character into the buffer as UTF-8. Surrogate pairs
+	 * split across calls are not joined up.
+	 * @param ch Character to be encoded
+	 * @throws IOException Buffer could not be written out
+	 */
+	private void putEncoded(String ch) throws IOException {
+		byte[] bytes = ch.getBytes(StandardCharsets.UTF_8);
+		if (buffer.remaining() < bytes.length) drain();
+		buffer.put(bytes);
+	}
+
+	/**
+	 * Writes everything in the buffer to the file.
+	 * @throws IOException File could not be written
+	 */
+	private void drain() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,141 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs a simulation and saves a snapshot of it to a file every so many
+ * simulated ticks. The simulation only stops for as long as it takes to
+ * copy its state; the snapshot is written to the file on a background
+ * thread. A new snapshot waits for the previous one to be written, so at
+ * most two copies of the state are held at once.
+ *
+ * If the outputs of the simulation are given, each snapshot also records
+ * how far they were written, which means waiting for the event log to
+ * write out every event so far.
+ */
+public class Checkpointer implements Closeable {
+
+// ---------- Field members
+
+	private Path file;
+	private int interval;
+	private ExecutorService writer;
+	private Future<?> pending;
+	private AsyncEventLog log;
+	private BinaryTraceWriter trace;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a checkpointer that writes to the given file.
+	 * @param file File each snapshot replaces
+	 * @param interval Simulated ticks between snapshots, at least 1
+	 */
+	public Checkpointer(Path file, int interval) {
+		if (interval < 1)
+			throw new IllegalArgumentException("Interval must be at least 1");
+		this.file = file;
+		this.interval = interval;
+		writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Checkpointer writer");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Sets the outputs whose lengths every snapshot records.
+	 * @param log Event log of the simulation or null
+	 * @param trace Binary trace of the simulation or null
+	 */
+	public void setOutputs(AsyncEventLog log, BinaryTraceWriter trace) {
+		this.log = log;
+		this.trace = trace;
+	}
+
+	/**
+	 * Runs the whole simulation from start to finish, saving a snapshot
+	 * every interval ticks.
+	 * @param engine Simulation to be run, new or resumed
+	 * @return Final statistics of the simulation
+	 * @throws IOException A snapshot could not be written
+	 */
+	public SimulationStats run(SimulationEngine engine) throws IOException {
+		engine.start();
+		long nextCheckpoint = (long)engine.getClock() + interval;
+		while (engine.hasWork()) {
+			engine.step();
+			if (engine.getClock() >= nextCheckpoint) {
+				checkpoint(engine);
+				nextCheckpoint = (long)engine.getClock() + interval;
+			}
+		}
+		return engine.finish();
+	}
+
+	/**
+	 * Takes a snapshot of the simulation now and writes it in the
+	 * background. Must be called between steps.
+	 * @param engine Simulation to be saved
+	 * @throws IOException The previous snapshot could not be written
+	 */
+	public void checkpoint(SimulationEngine engine) throws IOException {
+		awaitPending();
+		final EngineSnapshot snapshot = new EngineSnapshot(engine.snapshot(),
+				log != null ? log.sync() : EngineSnapshot.NO_OUTPUT,
+				trace != null ? trace.sync() : EngineSnapshot.NO_OUTPUT,
+				trace != null ? trace.getLastClock() : 0,
+				trace != null ? trace.getLastPID() : 0);
+		pending = writer.submit(new Callable<Void>() {
+			public Void call() throws IOException {
+				snapshot.write(file);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Waits for the last snapshot to be written and stops the writer
+	 * thread.
+	 * @throws IOException The last snapshot could not be written
+	 */
+	public void close() throws IOException {
+		try {
+			awaitPending();
+		} finally {
+			writer.shutdown();
+		}
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Waits for the snapshot that is being written, if any.
+	 * @throws IOException The snapshot could not be written
+	 */
+	private void awaitPending() throws IOException {
+		if (pending == null) return;
+		try {
+			pending.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing a snapshot", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException)e.getCause();
+			throw new IOException("Snapshot could not be written", e.getCause());
+		} finally {
+			pending = null;
+		}
+	}
+}
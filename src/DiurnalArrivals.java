@@ -0,0 +1,59 @@
+import java.util.SplittableRandom;
+
+/**
+ * Arrivals whose rate rises and falls over a period like the load of a
+ * day. The rate follows a sine wave around its average, and arrivals are
+ * drawn from a Poisson process at the peak rate and thinned out to the
+ * rate at their time.
+ */
+public class DiurnalArrivals extends ArrivalModel {
+
+// ---------- Field members
+
+	private double meanRate;
+	private double amplitude;
+	private double period;
+	private double peakGap;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a process whose rate goes from meanRate * (1 - amplitude) to
+	 * meanRate * (1 + amplitude) and back once every period, starting at
+	 * the average and rising.
+	 * @param meanRate Average arrivals per tick
+	 * @param amplitude Swing of the rate from 0 to 1
+	 * @param period Ticks from one peak to the next
+	 */
+	public DiurnalArrivals(double meanRate, double amplitude, double period) {
+		if (!(meanRate > 0))
+			throw new IllegalArgumentException("Rate must be positive");
+		if (amplitude < 0 || amplitude > 1)
+			throw new IllegalArgumentException("Amplitude must be from 0 to 1");
+		if (!(period > 0))
+			throw new IllegalArgumentException("Period must be positive");
+		this.meanRate = meanRate;
+		this.amplitude = amplitude;
+		this.period = period;
+		peakGap = 1.0 / (meanRate * (1.0 + amplitude));
+	}
+
+	/**
+	 * Returns the arrival rate at the given time.
+	 * @param time Time in ticks
+	 * @return Arrivals per tick
+	 */
+	public double rateAt(double time) {
+		return meanRate * (1.0 + amplitude * Math.sin(2 * Math.PI * time / period));
+	}
+
+	public double nextArrival(double now, SplittableRandom random) {
+		double peakRate = 1.0 / peakGap;
+		double time = now;
+		do {
+			time += exponential(random, peakGap);
+		} while (random.nextDouble() * peakRate > rateAt(time));
+		return time;
+	}
+}
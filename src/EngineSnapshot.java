@@ -0,0 +1,426 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Full state of a simulation at one point in time: the clock, the record
+ * keeping, every job in the system, the contents of every queue and the
+ * job on the CPU. A snapshot is its own copy of the state, so the
+ * simulation goes on while the snapshot is written, and any number of
+ * engines can be started from it.
+ *
+ * Jobs are not kept once they have left the system. Instead the snapshot
+ * counts the jobs read from the source so far, and a resumed engine skips
+ * that many jobs of the same input.
+ *
+ * A snapshot taken by a Checkpointer also records how long the event log
+ * and the binary trace were at that point, and the last event of the
+ * trace, so a resumed run can cut them back to there and go on writing
+ * them instead of starting them over.
+ *
+ * The binary format is the magic bytes "MFQC" and a version number,
+ * followed by the state as big-endian ints, longs and doubles. The job
+ * table is written column by column.
+ */
+public class EngineSnapshot {
+
+// ---------- Field members
+
+	private static final byte[] MAGIC = { 'M', 'F', 'Q', 'C' };
+	private static final int VERSION = 3;
+	public static final long NO_OUTPUT = -1;
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	final int clock;
+	final long jobsRead;
+	final JobTable jobs;
+	final int[] prefetched;
+	final int[][] queued;
+	final int cpuJob, quantumClock;
+	final SimulationStats stats;
+	final long logLength, traceLength;
+	final int traceClock, tracePID;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a snapshot from state that was already copied. See
+	 * SimulationEngine.snapshot().
+	 * @param clock System clock
+	 * @param jobsRead Number of jobs read from the source
+	 * @param jobs Table of the jobs in the system
+	 * @param prefetched Jobs read ahead that have not arrived
+	 * @param queued Jobs waiting in each queue level, front first
+	 * @param cpuJob Job on the CPU or JobTable.NONE
+	 * @param quantumClock Ticks left of the quantum of the CPU's job
+	 * @param stats Record keeping so far
+	 */
+	EngineSnapshot(int clock, long jobsRead, JobTable jobs, int[] prefetched,
+				   int[][] queued, int cpuJob, int quantumClock,
+				   SimulationStats stats) {
+		this.clock = clock;
+		this.jobsRead = jobsRead;
+		this.jobs = jobs;
+		this.prefetched = prefetched;
+		this.queued = queued;
+		this.cpuJob = cpuJob;
+		this.quantumClock = quantumClock;
+		this.stats = stats;
+		logLength = NO_OUTPUT;
+		traceLength = NO_OUTPUT;
+		traceClock = 0;
+		tracePID = 0;
+	}
+
+	/**
+	 * Creates a copy of a snapshot that records where the outputs of the
+	 * simulation were at the time. The state is shared, not copied.
+	 * @param other Snapshot of the state
+	 * @param logLength Bytes of the event log or NO_OUTPUT
+	 * @param traceLength Bytes of the binary trace or NO_OUTPUT
+	 * @param traceClock System time of the last event of the trace
+	 * @param tracePID Process ID of the last event of the trace
+	 */
+	EngineSnapshot(EngineSnapshot other, long logLength, long traceLength,
+				   int traceClock, int tracePID) {
+		clock = other.clock;
+		jobsRead = other.jobsRead;
+		jobs = other.jobs;
+		prefetched = other.prefetched;
+		queued = other.queued;
+		cpuJob = other.cpuJob;
+		quantumClock = other.quantumClock;
+		stats = other.stats;
+		this.logLength = logLength;
+		this.traceLength = traceLength;
+		this.traceClock = traceClock;
+		this.tracePID = tracePID;
+	}
+
+	/**
+	 * Returns the state of a simulation that has not started yet.
+	 * @param numLevels Number of queue levels
+	 * @return Snapshot at clock 0 with no jobs read
+	 */
+	public static EngineSnapshot initial(int numLevels) {
+		return new EngineSnapshot(0, 0, new JobTable(), new int[0],
+				new int[numLevels][0], JobTable.NONE, 0, new SimulationStats());
+	}
+
+	/**
+	 * Reads a snapshot from a file written by write().
+	 * @param file File holding the snapshot
+	 * @return Snapshot that was read
+	 * @throws IOException File could not be read or is not a snapshot
+	 */
+	public static EngineSnapshot read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			Input in = new Input(channel);
+			for (byte b : MAGIC) {
+				if (in.getByte() != b)
+					throw new IOException("Not an MFQ snapshot");
+			}
+			int version = in.getInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported snapshot version " + version);
+
+			int clock = in.getInt();
+			long jobsRead = in.getLong();
+			long totalJobs = in.getLong();
+			long totalJobTime = in.getLong();
+			long idleTime = in.getLong();
+			double resp = in.getDouble();
+			double wait = in.getDouble();
+			double ta = in.getDouble();
+			double throughput = in.getDouble();
+			SimulationStats stats = new SimulationStats(totalJobs, totalJobTime,
+					idleTime, resp, wait, ta, throughput);
+			int cpuJob = in.getInt();
+			int quantumClock = in.getInt();
+
+			int numRows = in.getInt();
+			int numFree = in.getInt();
+			int numColumns = in.getInt();
+			int[][] columns = new int[numColumns][];
+			for (int i = 0; i < numColumns; i++) {
+				columns[i] = in.getInts(numRows);
+			}
+			if (numColumns != JobTable.NUM_COLUMNS)
+				throw new IOException("Corrupt snapshot");
+			int[] freeRows = Arrays.copyOf(in.getInts(numFree), numRows);
+			JobTable jobs = new JobTable(columns, freeRows, numRows, numFree);
+
+			int[] prefetched = in.getInts(in.getInt());
+			int[][] queued = new int[in.getInt()][];
+			for (int i = 0; i < queued.length; i++) {
+				queued[i] = in.getInts(in.getInt());
+			}
+
+			long logLength = in.getLong();
+			long traceLength = in.getLong();
+			int traceClock = in.getInt();
+			int tracePID = in.getInt();
+			return new EngineSnapshot(new EngineSnapshot(clock, jobsRead,
+					jobs, prefetched, queued, cpuJob, quantumClock, stats),
+					logLength, traceLength, traceClock, tracePID);
+		}
+	}
+
+	/**
+	 * Writes the snapshot to a file. It is first written next to the file
+	 * and then moved in place, so an interrupted write never leaves a
+	 * broken snapshot behind. Safe to call from any thread.
+	 * @param file File the snapshot is written to
+	 * @throws IOException File could not be written
+	 */
+	public void write(Path file) throws IOException {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			Output out = new Output(channel);
+			for (byte b : MAGIC) out.putByte(b);
+			out.putInt(VERSION);
+
+			out.putInt(clock);
+			out.putLong(jobsRead);
+			out.putLong(stats.getTotalJobs());
+			out.putLong(stats.getTotalJobTime());
+			out.putLong(stats.getCPUIdleTime());
+			out.putDouble(stats.getAvgResponseTime());
+			out.putDouble(stats.getAvgWaitingTime());
+			out.putDouble(stats.getAvgTurnaroundTime());
+			out.putDouble(stats.getThroughput());
+			out.putInt(cpuJob);
+			out.putInt(quantumClock);
+
+			int[][] columns = jobs.columns();
+			out.putInt(jobs.rowCount());
+			out.putInt(jobs.freeCount());
+			out.putInt(columns.length);
+			for (int[] column : columns) {
+				out.putInts(column, jobs.rowCount());
+			}
+			out.putInts(jobs.freeRows(), jobs.freeCount());
+
+			out.putInt(prefetched.length);
+			out.putInts(prefetched, prefetched.length);
+			out.putInt(queued.length);
+			for (int[] queue : queued) {
+				out.putInt(queue.length);
+				out.putInts(queue, queue.length);
+			}
+
+			out.putLong(logLength);
+			out.putLong(traceLength);
+			out.putInt(traceClock);
+			out.putInt(tracePID);
+			out.flush();
+			channel.force(false);
+		}
+		try {
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+					   StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Returns the system time the snapshot was taken at.
+	 * @return System clock
+	 */
+	public int getClock() {
+		return clock;
+	}
+
+	/**
+	 * Returns the number of jobs read from the source when the snapshot
+	 * was taken.
+	 * @return Jobs read
+	 */
+	public long getJobsRead() {
+		return jobsRead;
+	}
+
+	/**
+	 * Returns the length of the event log when the snapshot was taken.
+	 * @return Bytes of the event log or NO_OUTPUT if not recorded
+	 */
+	public long getLogLength() {
+		return logLength;
+	}
+
+	/**
+	 * Returns the length of the binary trace when the snapshot was taken.
+	 * @return Bytes of the trace or NO_OUTPUT if not recorded
+	 */
+	public long getTraceLength() {
+		return traceLength;
+	}
+
+	/**
+	 * Returns the system time of the last event of the binary trace.
+	 * @return System clock of the last event
+	 */
+	public int getTraceClock() {
+		return traceClock;
+	}
+
+	/**
+	 * Returns the process ID of the last event of the binary trace.
+	 * @return Process ID of the last event
+	 */
+	public int getTracePID() {
+		return tracePID;
+	}
+
+	/**
+	 * Returns the number of queue levels of the simulation.
+	 * @return Number of queue levels
+	 */
+	public int getNumLevels() {
+		return queued.length;
+	}
+
+	/**
+	 * Returns the number of jobs that have arrived and not yet left.
+	 * @return Jobs in the queues and on the CPU
+	 */
+	public int getJobsInSystem() {
+		int count = cpuJob == JobTable.NONE ? 0 : 1;
+		for (int[] queue : queued) count += queue.length;
+		return count;
+	}
+
+
+// ---------- Inner classes
+
+	/**
+	 * Writes numbers to a channel through a large direct buffer.
+	 */
+	private static class Output {
+		private FileChannel channel;
+		private ByteBuffer buffer;
+
+		Output(FileChannel channel) {
+			this.channel = channel;
+			buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		}
+
+		void putByte(byte b) throws IOException {
+			ensure(1);
+			buffer.put(b);
+		}
+
+		void putInt(int value) throws IOException {
+			ensure(4);
+			buffer.putInt(value);
+		}
+
+		void putLong(long value) throws IOException {
+			ensure(8);
+			buffer.putLong(value);
+		}
+
+		void putDouble(double value) throws IOException {
+			ensure(8);
+			buffer.putDouble(value);
+		}
+
+		/**
+		 * Writes the first length ints of an array in bulk.
+		 */
+		void putInts(int[] values, int length) throws IOException {
+			int offset = 0;
+			while (offset < length) {
+				ensure(4);
+				int n = Math.min(length - offset, buffer.remaining() / 4);
+				buffer.asIntBuffer().put(values, offset, n);
+				buffer.position(buffer.position() + 4 * n);
+				offset += n;
+			}
+		}
+
+		void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) channel.write(buffer);
+			buffer.clear();
+		}
+
+		private void ensure(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) flush();
+		}
+	}
+
+	/**
+	 * Reads numbers from a channel through a large direct buffer.
+	 */
+	private static class Input {
+		private FileChannel channel;
+		private ByteBuffer buffer;
+
+		Input(FileChannel channel) {
+			this.channel = channel;
+			buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			buffer.flip();
+		}
+
+		byte getByte() throws IOException {
+			ensure(1);
+			return buffer.get();
+		}
+
+		int getInt() throws IOException {
+			ensure(4);
+			return buffer.getInt();
+		}
+
+		long getLong() throws IOException {
+			ensure(8);
+			return buffer.getLong();
+		}
+
+		double getDouble() throws IOException {
+			ensure(8);
+			return buffer.getDouble();
+		}
+
+		/**
+		 * Reads the given number of ints in bulk.
+		 */
+		int[] getInts(int length) throws IOException {
+			if (length < 0) throw new IOException("Corrupt snapshot");
+			int[] values = new int[length];
+			int offset = 0;
+			while (offset < length) {
+				ensure(4);
+				int n = Math.min(length - offset, buffer.remaining() / 4);
+				buffer.asIntBuffer().get(values, offset, n);
+				buffer.position(buffer.position() + 4 * n);
+				offset += n;
+			}
+			return values;
+		}
+
+		/**
+		 * Makes sure the buffer holds at least the given number of bytes.
+		 */
+		private void ensure(int bytes) throws IOException {
+			if (buffer.remaining() >= bytes) return;
+			buffer.compact();
+			while (buffer.position() < bytes) {
+				if (channel.read(buffer) < 0)
+					throw new IOException("Snapshot ended early");
+			}
+			buffer.flip();
+		}
+	}
+}
@@ -0,0 +1,171 @@
+
+/**
+ * Formats the rows of the event table and the final statistics. Rows are
+ * appended to a StringBuilder with the same layout that
+ * "%9s   %8s   %3s   %15s   %17s   %3s" gives, without going through
+ * String.format for every event.
+ */
+public class EventFormatter {
+
+// ---------- Field members
+
+	// Stands for a column that has no value, printed as "-"
+	public static final int NO_VALUE = Integer.MIN_VALUE;
+
+	private static final String ROW = "%9s   %8s   %3s   %15s   %17s   %3s\n";
+	private static final String HEADER =
+			String.format(ROW, "Event", "Sys Time", "PID", "CPU Time Needed",
+					"Total Time in Sys", "LLQ") +
+			String.format(ROW, "-----", "--------", "---", "---------------",
+					"-----------------", "---");
+
+
+// ---------- Public methods
+
+	/**
+	 * Returns the two header lines of the event table.
+	 * @return Header string
+	 */
+	public static String header() {
+		return HEADER;
+	}
+
+	/**
+	 * Appends the row of a job arriving into the system.
+	 * @param sb Builder the row is appended to
+	 * @param clock System time of the arrival
+	 * @param pid Job's process ID
+	 * @param timeNeeded Job's CPU time required
+	 */
+	public static void appendArrival(StringBuilder sb, int clock, int pid,
+									 int timeNeeded) {
+		appendRow(sb, "ARRIVAL", clock, pid, timeNeeded, NO_VALUE, NO_VALUE);
+	}
+
+	/**
+	 * Appends the row of a job departing from the system.
+	 * @param sb Builder the row is appended to
+	 * @param clock System time of the departure
+	 * @param pid Job's process ID
+	 * @param timeInSys Time the job spent in the system
+	 * @param llq Last queue the job was in, counting from 1
+	 */
+	public static void appendDeparture(StringBuilder sb, int clock, int pid,
+									   int timeInSys, int llq) {
+		appendRow(sb, "DEPARTURE", clock, pid, NO_VALUE, timeInSys, llq);
+	}
+
+	/**
+	 * Appends a row of the event table.
+	 * @param sb Builder the row is appended to
+	 * @param event Name of the event
+	 * @param sysTime System time column
+	 * @param pid PID column
+	 * @param timeNeeded CPU time needed column or NO_VALUE
+	 * @param timeInSys Total time in system column or NO_VALUE
+	 * @param llq Last queue column or NO_VALUE
+	 */
+	public static void appendRow(StringBuilder sb, String event, int sysTime,
+								 int pid, int timeNeeded, int timeInSys,
+								 int llq) {
+		pad(sb, event.length(), 9);
+		sb.append(event);
+		sb.append("   ");
+		appendColumn(sb, sysTime, 8);
+		sb.append("   ");
+		appendColumn(sb, pid, 3);
+		sb.append("   ");
+		appendColumn(sb, timeNeeded, 15);
+		sb.append("   ");
+		appendColumn(sb, timeInSys, 17);
+		sb.append("   ");
+		appendColumn(sb, llq, 3);
+		sb.append('\n');
+	}
+
+	/**
+	 * Appends the final statistics. The console and the file label some
+	 * of the statistics differently.
+	 * @param sb Builder the statistics are appended to
+	 * @param stats Final statistics of the simulation
+	 * @param forFile Use the labels of the output file or the console
+	 */
+	public static void appendStats(StringBuilder sb, SimulationStats stats,
+								   boolean forFile) {
+		sb.append(String.format("\nTotal number of jobs -- %d\n",
+				stats.getTotalJobs()));
+		sb.append(String.format(forFile ?
+				"Total time of all jobs in system -- %d\n" :
+				"Total time of all jobs -- %d\n", stats.getTotalJobTime()));
+		sb.append(String.format("Average response time -- %.2f\n",
+				stats.getAvgResponseTime()));
+		sb.append(String.format("Average turnaround time -- %.2f\n",
+				stats.getAvgTurnaroundTime()));
+		sb.append(String.format("Average waiting time -- %.2f\n",
+				stats.getAvgWaitingTime()));
+		sb.append(String.format(forFile ?
+				"Average throughput for system -- %.2f\n" :
+				"Average throughput -- %.2f\n", stats.getThroughput()));
+		sb.append(String.format("Total CPU idle time -- %d\n",
+				stats.getCPUIdleTime()));
+	}
+
+	/**
+	 * Returns the closing message printed to the console.
+	 * @return Closing message
+	 */
+	public static String closing() {
+		String newLine = System.lineSeparator();
+		return "\n----------------------------" + newLine +
+			   "Check \"csis.txt\" for output." + newLine;
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Appends a number right-aligned to the given width, or "-" if there
+	 * is no value.
+	 * @param sb Builder the column is appended to
+	 * @param value Number of the column or NO_VALUE
+	 * @param width Width of the column
+	 */
+	private static void appendColumn(StringBuilder sb, int value, int width) {
+		if (value == NO_VALUE) {
+			pad(sb, 1, width);
+			sb.append('-');
+		} else {
+			pad(sb, digits(value), width);
+			sb.append(value);
+		}
+	}
+
+	/**
+	 * Appends the spaces that right-align text of the given length.
+	 * @param sb Builder the spaces are appended to
+	 * @param length Length of the text
+	 * @param width Width of the column
+	 */
+	private static void pad(StringBuilder sb, int length, int width) {
+		for (int i = length; i < width; i++) sb.append(' ');
+	}
+
+	/**
+	 * Returns the number of characters of a number, including its sign.
+	 * @param value Number to be measured
+	 * @return Length of the number as text
+	 */
+	private static int digits(int value) {
+		long n = value;
+		int length = 1;
+		if (n < 0) {
+			length++;
+			n = -n;
+		}
+		while (n >= 10) {
+			n /= 10;
+			length++;
+		}
+		return length;
+	}
+}
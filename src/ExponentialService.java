@@ -0,0 +1,29 @@
+import java.util.SplittableRandom;
+
+/**
+ * CPU times that are exponentially distributed, so most jobs are short and
+ * few are much longer than the average.
+ */
+public class ExponentialService extends ServiceModel {
+
+// ---------- Field members
+
+	private double mean;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates exponential CPU times with the given average.
+	 * @param mean Average CPU time in ticks
+	 */
+	public ExponentialService(double mean) {
+		if (!(mean > 0))
+			throw new IllegalArgumentException("Mean must be positive");
+		this.mean = mean;
+	}
+
+	public int nextServiceTime(SplittableRandom random) {
+		return toTicks(ArrivalModel.exponential(random, mean));
+	}
+}
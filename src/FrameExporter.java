@@ -0,0 +1,192 @@
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Runs a simulation and draws a frame of it every so many simulated
+ * ticks into a numbered PNG file, without a window, so a run can be
+ * watched afterwards or turned into a video. The simulation thread only
+ * copies the state into a FrameSnapshot; the frames are drawn and encoded
+ * by a pool of background threads, each with its own SceneRenderer. At
+ * most a few frames per thread are waiting at once, so a fast simulation
+ * waits for the writers instead of filling the memory with frames.
+ */
+public class FrameExporter implements Closeable {
+
+// ---------- Field members
+
+	public static final String FILE_FORMAT = "frame%06d.png";
+	private static final int FRAMES_PER_THREAD = 2;
+
+	private File dir;
+	private int interval;
+	private ExecutorService writers;
+	private Semaphore slots;
+	private ArrayDeque<Future<?>> pending;
+	private ThreadLocal<SceneRenderer> renderers;
+	private int framesWritten;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates an exporter that writes to the given folder with one thread
+	 * per core.
+	 * @param dir Folder the frames are written to, made if it is missing
+	 * @param interval Simulated ticks between frames, at least 1
+	 * @param renderer Renderer the threads draw with copies of
+	 */
+	public FrameExporter(File dir, int interval, SceneRenderer renderer) {
+		this(dir, interval, renderer,
+			 Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates an exporter that writes to the given folder.
+	 * @param dir Folder the frames are written to, made if it is missing
+	 * @param interval Simulated ticks between frames, at least 1
+	 * @param renderer Renderer the threads draw with copies of
+	 * @param threads Number of threads drawing and encoding frames
+	 */
+	public FrameExporter(File dir, int interval, final SceneRenderer renderer,
+						 int threads) {
+		if (interval < 1)
+			throw new IllegalArgumentException("Interval must be at least 1");
+		if (threads < 1)
+			throw new IllegalArgumentException("Threads must be at least 1");
+		this.dir = dir;
+		this.interval = interval;
+		writers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Frame writer");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		slots = new Semaphore(threads * FRAMES_PER_THREAD);
+		pending = new ArrayDeque<Future<?>>();
+		renderers = new ThreadLocal<SceneRenderer>() {
+			protected SceneRenderer initialValue() {
+				return new SceneRenderer(renderer);
+			}
+		};
+		framesWritten = 0;
+	}
+
+	/**
+	 * Runs the whole simulation from start to finish, writing a frame
+	 * every interval ticks and one of the end. The engine processes every
+	 * tick, so each frame shows the simulation at exactly its time.
+	 * @param engine Simulation to be run, new or resumed
+	 * @return Final statistics of the simulation
+	 * @throws IOException A frame could not be written
+	 */
+	public SimulationStats run(SimulationEngine engine) throws IOException {
+		if (!dir.isDirectory() && !dir.mkdirs())
+			throw new IOException("Folder " + dir + " could not be made");
+		FramePublisher frames = new FramePublisher(engine);
+		frames.setMaxHeld(SceneRenderer.VISIBLE_ROWS);
+		engine.addListener(frames);
+		engine.setStepEveryTick(true);
+
+		engine.start();
+		export(frames.publish());
+		long nextFrame = (long)engine.getClock() + interval;
+		while (engine.hasWork()) {
+			engine.step();
+			if (engine.getClock() >= nextFrame) {
+				export(frames.publish());
+				nextFrame = (long)engine.getClock() + interval;
+			}
+		}
+		SimulationStats stats = engine.finish();
+		export(frames.publish());
+		return stats;
+	}
+
+	/**
+	 * Draws a frame and writes it to the next file in the background.
+	 * Waits while too many frames are waiting to be written.
+	 * @param frame Frame to be written
+	 * @throws IOException An earlier frame could not be written
+	 */
+	public void export(final FrameSnapshot frame) throws IOException {
+		checkWritten(false);
+		try {
+			slots.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing frames", e);
+		}
+		final File file = new File(dir, String.format(Locale.ROOT,
+				FILE_FORMAT, ++framesWritten));
+		pending.add(writers.submit(new Callable<Void>() {
+			public Void call() throws IOException {
+				try {
+					BufferedImage image = renderers.get().render(frame);
+					if (!ImageIO.write(image, "png", file))
+						throw new IOException("No PNG writer");
+					return null;
+				} finally {
+					slots.release();
+				}
+			}
+		}));
+	}
+
+	/**
+	 * Returns the number of frames handed to the exporter so far.
+	 * @return Frames exported
+	 */
+	public int getFramesWritten() {
+		return framesWritten;
+	}
+
+	/**
+	 * Waits for every frame to be written and stops the writer threads.
+	 * @throws IOException A frame could not be written
+	 */
+	public void close() throws IOException {
+		try {
+			checkWritten(true);
+		} finally {
+			writers.shutdown();
+		}
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Takes the frames that are written off the list of pending frames,
+	 * oldest first, and reports the first one that failed.
+	 * @param wait Wait for every pending frame or only take finished ones
+	 * @throws IOException A frame could not be written
+	 */
+	private void checkWritten(boolean wait) throws IOException {
+		while (!pending.isEmpty() && (wait || pending.peek().isDone())) {
+			try {
+				pending.poll().get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while writing frames", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException)
+					throw (IOException)e.getCause();
+				throw new IOException("Frame could not be written", e.getCause());
+			}
+		}
+	}
+}
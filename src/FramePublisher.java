@@ -0,0 +1,203 @@
+import java.util.Arrays;
+
+/**
+ * Hands the state of a running simulation over to the GUI. The publisher
+ * listens to the engine on the simulation thread, and after every step
+ * publish() copies what is to be shown into a new FrameSnapshot. The
+ * latest frame is kept in a single volatile field, so a reader on another
+ * thread always sees a whole frame and never waits for the simulation.
+ * Frames that are replaced before they are read are simply skipped.
+ *
+ * Only the front of each queue is copied, as many jobs as the reader can
+ * show, along with the ages of at most AGE_SAMPLES jobs spread evenly
+ * over it, so the cost of a frame does not grow with the length of the
+ * queues.
+ */
+public class FramePublisher extends SimulationAdapter {
+
+// ---------- Field members
+
+	public static final int LOG_SIZE = 256;
+	public static final int AGE_SAMPLES = 64;
+
+	private SimulationEngine engine;
+	private JobTable jobs;
+	private volatile FrameSnapshot latest;
+	private volatile int maxHeld;
+
+	// Visual ID of each job handle
+	private int[] visualID = new int[16];
+	private int nextVisualID;
+
+	private String status;
+	private String[] log;
+	private long logCount;
+	private int[] departed;
+	private long departureCount;
+	private boolean logShared, departedShared, finished;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a publisher of the given engine. It must also be added to
+	 * the engine as a listener. Jobs that are already in an engine resumed
+	 * from a snapshot get their visual IDs here.
+	 * @param engine Simulation to be shown
+	 */
+	public FramePublisher(SimulationEngine engine) {
+		this.engine = engine;
+		jobs = engine.getJobs();
+		nextVisualID = 0;
+		status = engine.getClock() > 0 ? "Working" : "Waiting to start";
+		log = new String[LOG_SIZE];
+		logCount = 0;
+		departed = new int[LOG_SIZE];
+		departureCount = 0;
+		logShared = false;
+		departedShared = false;
+		maxHeld = Integer.MAX_VALUE;
+		finished = false;
+		for (int level = 0; level < engine.getNumLevels(); level++) {
+			for (int i = 0; i < engine.getQueueSize(level); i++)
+				assignVisualID(engine.getQueuedJob(level, i));
+		}
+		if (engine.getCPUJob() != JobTable.NONE)
+			assignVisualID(engine.getCPUJob());
+		publish();
+	}
+
+	/**
+	 * Sets how many jobs at the front of each queue the frames hold. The
+	 * rest are only counted.
+	 * @param maxHeld Jobs held per queue, at least 0
+	 */
+	public void setMaxHeld(int maxHeld) {
+		if (maxHeld < 0)
+			throw new IllegalArgumentException("Jobs held must not be negative");
+		this.maxHeld = maxHeld;
+	}
+
+	/**
+	 * Copies the state of the simulation into a new frame and makes it
+	 * the latest. Must be called on the simulation thread between steps.
+	 * @return Frame that was published
+	 */
+	public FrameSnapshot publish() {
+		int numLevels = engine.getNumLevels();
+		int[] queueSize = new int[numLevels];
+		int[][] queueIDs = new int[numLevels][];
+		int[][] queuePIDs = new int[numLevels][];
+		int[][] queueTimeLeft = new int[numLevels][];
+		int[][] ageSample = new int[numLevels][];
+		int clock = engine.getClock();
+		int maxHeld = this.maxHeld;
+		for (int level = 0; level < numLevels; level++) {
+			int size = engine.getQueueSize(level);
+			int held = Math.min(size, maxHeld);
+			queueSize[level] = size;
+			queueIDs[level] = new int[held];
+			queuePIDs[level] = new int[held];
+			queueTimeLeft[level] = new int[held];
+			for (int i = 0; i < held; i++) {
+				int job = engine.getQueuedJob(level, i);
+				queueIDs[level][i] = visualID[job];
+				queuePIDs[level][i] = jobs.getPID(job);
+				queueTimeLeft[level][i] = jobs.getTimeRemaining(job);
+			}
+			ageSample[level] = new int[Math.min(size, AGE_SAMPLES)];
+			for (int i = 0; i < ageSample[level].length; i++) {
+				int job = engine.getQueuedJob(level,
+						(int)((long)i * size / ageSample[level].length));
+				ageSample[level][i] = clock - jobs.getArrivalTime(job);
+			}
+		}
+
+		int cpuJob = engine.getCPUJob();
+		int cpuID = FrameSnapshot.NONE, cpuPID = 0, cpuTimeLeft = 0;
+		int quantumLeft = 0;
+		if (cpuJob != JobTable.NONE) {
+			cpuID = visualID[cpuJob];
+			cpuPID = jobs.getPID(cpuJob);
+			cpuTimeLeft = jobs.getTimeRemaining(cpuJob);
+			quantumLeft = engine.getQuantumLeft();
+		}
+
+		// Frames share the rings until something is written to them
+		logShared = true;
+		departedShared = true;
+		FrameSnapshot frame = new FrameSnapshot(clock, queueSize, queueIDs,
+				queuePIDs, queueTimeLeft, ageSample, cpuID, cpuPID,
+				cpuTimeLeft, quantumLeft, status, log, logCount, departed,
+				departureCount, finished);
+		latest = frame;
+		return frame;
+	}
+
+	/**
+	 * Returns the latest published frame. Safe to call from any thread.
+	 * @return Latest frame
+	 */
+	public FrameSnapshot getLatest() {
+		return latest;
+	}
+
+	public void onStart(JobTable jobs) {
+		this.jobs = jobs;
+	}
+
+	public void onArrival(int clock, int job) {
+		assignVisualID(job);
+		addLogLine("ARRIVAL:\t\t" + jobs.getPID(job) + " - @ - " + clock);
+	}
+
+	public void onDispatch(int clock, int job, int queueLevel) {
+		status = "Working";
+	}
+
+	public void onPreempt(int clock, int job) {
+		status = "CPU Preemption";
+	}
+
+	public void onDeparture(int clock, int job) {
+		addLogLine("DEPARTURE:\t\t" + jobs.getPID(job) + " - @ - " + clock);
+		if (departedShared) {
+			departed = departed.clone();
+			departedShared = false;
+		}
+		departed[(int)(departureCount % departed.length)] = visualID[job];
+		departureCount++;
+		status = "Job Finished";
+	}
+
+	public void onFinish(SimulationStats stats) {
+		status = "Simulation Complete";
+		finished = true;
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Gives a job that is new to the publisher the next visual ID.
+	 * @param job Handle of the job
+	 */
+	private void assignVisualID(int job) {
+		if (job >= visualID.length)
+			visualID = Arrays.copyOf(visualID, 2 * (job + 1));
+		visualID[job] = nextVisualID++;
+	}
+
+	/**
+	 * Writes a line to the ring of the event log.
+	 * @param line Line to be written
+	 */
+	private void addLogLine(String line) {
+		if (logShared) {
+			log = log.clone();
+			logShared = false;
+		}
+		log[(int)(logCount % log.length)] = line;
+		logCount++;
+	}
+}
@@ -0,0 +1,233 @@
+import java.util.Arrays;
+
+/**
+ * What the GUI shows of the simulation at one moment: the jobs in every
+ * queue, the job on the CPU with its quantum, the status of the system
+ * and the latest lines of the event log. A frame is never changed once it
+ * is made, so the simulation thread can hand it to any number of readers
+ * without locking. See FramePublisher.
+ *
+ * Jobs are known by a visual ID that is given to each job on arrival and
+ * never reused, so a reader can tell a job from the one that took its
+ * place in the job table. A frame may hold only the front of each queue,
+ * so a job missing from it has either left the system, which the latest
+ * departures tell, or moved out of view. For a view of the whole of a
+ * long queue, the frame holds the ages of jobs sampled evenly along it.
+ */
+public class FrameSnapshot {
+
+// ---------- Field members
+
+	public static final int NONE = -1;
+
+	private final int clock;
+	private final int[] queueSize;
+	private final int[][] queueIDs, queuePIDs, queueTimeLeft;
+	private final int[][] ageSample, sortedAges;
+	private final int cpuID, cpuPID, cpuTimeLeft, quantumLeft;
+	private final String status;
+	private final String[] log;
+	private final long logCount;
+	private final int[] departed;
+	private final long departureCount;
+	private final boolean finished;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a frame from arrays that are handed over and never changed
+	 * again.
+	 * @param clock System clock
+	 * @param queueSize Number of jobs in each queue level
+	 * @param queueIDs Visual IDs of the jobs in each queue, front first
+	 * @param queuePIDs Process IDs of the jobs in each queue
+	 * @param queueTimeLeft CPU time left of the jobs in each queue
+	 * @param ageSample Ages of jobs sampled evenly along each queue
+	 * @param cpuID Visual ID of the job on the CPU or NONE
+	 * @param cpuPID Process ID of the job on the CPU
+	 * @param cpuTimeLeft CPU time left of the job on the CPU
+	 * @param quantumLeft Ticks left of the quantum of the job on the CPU
+	 * @param status Status of the system
+	 * @param log Ring of the latest log lines, line n at n % log.length
+	 * @param logCount Number of log lines written so far
+	 * @param departed Ring of the visual IDs of the latest departures
+	 * @param departureCount Number of departures so far
+	 * @param finished Simulation is complete or not
+	 */
+	FrameSnapshot(int clock, int[] queueSize, int[][] queueIDs,
+				  int[][] queuePIDs, int[][] queueTimeLeft,
+				  int[][] ageSample, int cpuID,
+				  int cpuPID, int cpuTimeLeft, int quantumLeft, String status,
+				  String[] log, long logCount, int[] departed,
+				  long departureCount, boolean finished) {
+		this.clock = clock;
+		this.queueSize = queueSize;
+		this.queueIDs = queueIDs;
+		this.queuePIDs = queuePIDs;
+		this.queueTimeLeft = queueTimeLeft;
+		this.ageSample = ageSample;
+		sortedAges = new int[ageSample.length][];
+		for (int level = 0; level < ageSample.length; level++) {
+			sortedAges[level] = ageSample[level].clone();
+			Arrays.sort(sortedAges[level]);
+		}
+		this.cpuID = cpuID;
+		this.cpuPID = cpuPID;
+		this.cpuTimeLeft = cpuTimeLeft;
+		this.quantumLeft = quantumLeft;
+		this.status = status;
+		this.log = log;
+		this.logCount = logCount;
+		this.departed = departed;
+		this.departureCount = departureCount;
+		this.finished = finished;
+	}
+
+	public int getClock() {
+		return clock;
+	}
+
+	public int getNumLevels() {
+		return queueSize.length;
+	}
+
+	/**
+	 * Returns the number of jobs waiting in a queue level.
+	 * @param level Queue level
+	 * @return Number of jobs in the queue
+	 */
+	public int getQueueSize(int level) {
+		return queueSize[level];
+	}
+
+	/**
+	 * Returns the number of jobs of a queue level that the frame holds,
+	 * counted from the front. It is less than the size of the queue when
+	 * the rest would not be seen.
+	 * @param level Queue level
+	 * @return Number of jobs held
+	 */
+	public int getHeldCount(int level) {
+		return queueIDs[level].length;
+	}
+
+	/**
+	 * Returns the visual ID of a waiting job.
+	 * @param level Queue level
+	 * @param index Position in the queue, 0 at the front
+	 * @return Visual ID
+	 */
+	public int getJobID(int level, int index) {
+		return queueIDs[level][index];
+	}
+
+	public int getJobPID(int level, int index) {
+		return queuePIDs[level][index];
+	}
+
+	public int getJobTimeLeft(int level, int index) {
+		return queueTimeLeft[level][index];
+	}
+
+	/**
+	 * Returns the number of jobs of a queue level whose ages were sampled.
+	 * @param level Queue level
+	 * @return Number of ages sampled
+	 */
+	public int getAgeSampleCount(int level) {
+		return ageSample[level].length;
+	}
+
+	/**
+	 * Returns a sampled age, in the order of the queue. Sample i was
+	 * taken at about i / count of the way from the front to the back.
+	 * @param level Queue level
+	 * @param i Number of the sample
+	 * @return Ticks since the job arrived in the system
+	 */
+	public int getAgeSample(int level, int i) {
+		return ageSample[level][i];
+	}
+
+	/**
+	 * Returns the age at or below which the given share of the sampled
+	 * jobs of a queue level lie.
+	 * @param level Queue level
+	 * @param percentile Percentile from 0 to 100
+	 * @return Age in ticks or 0 if the queue is empty
+	 */
+	public int getAgeAtPercentile(int level, double percentile) {
+		int[] ages = sortedAges[level];
+		if (ages.length == 0) return 0;
+		int rank = (int)Math.ceil(percentile / 100.0 * ages.length) - 1;
+		return ages[Math.max(0, Math.min(rank, ages.length - 1))];
+	}
+
+	/**
+	 * Returns the visual ID of the job on the CPU.
+	 * @return Visual ID or NONE if the CPU is idle
+	 */
+	public int getCPUJobID() {
+		return cpuID;
+	}
+
+	public int getCPUJobPID() {
+		return cpuPID;
+	}
+
+	public int getCPUJobTimeLeft() {
+		return cpuTimeLeft;
+	}
+
+	public int getQuantumLeft() {
+		return quantumLeft;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns the number of lines written to the event log so far.
+	 * @return Log lines written
+	 */
+	public long getLogCount() {
+		return logCount;
+	}
+
+	/**
+	 * Returns a line of the event log if it is still held. Only the
+	 * latest lines are kept.
+	 * @param n Number of the line, counted from 0
+	 * @return Log line or null if it is no longer held
+	 */
+	public String getLogLine(long n) {
+		if (n < 0 || n >= logCount || n < logCount - log.length) return null;
+		return log[(int)(n % log.length)];
+	}
+
+	/**
+	 * Returns the number of jobs that have left the system so far.
+	 * @return Departures so far
+	 */
+	public long getDepartureCount() {
+		return departureCount;
+	}
+	
+	/**
+	 * Returns the visual ID of a job that left the system if it is still
+	 * held. Only the latest departures are kept.
+	 * @param n Number of the departure, counted from 0
+	 * @return Visual ID or NONE if it is no longer held
+	 */
+	public int getDeparture(long n) {
+		if (n < 0 || n >= departureCount || n < departureCount - departed.length)
+			return NONE;
+		return departed[(int)(n % departed.length)];
+	}
+
+	public boolean isFinished() {
+		return finished;
+	}
+}
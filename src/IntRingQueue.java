@@ -0,0 +1,182 @@
+
+/**
+ * Queue of primitive ints kept in a power-of-two ring buffer, so job
+ * handles are queued without boxing them. The buffer grows by doubling
+ * and shrinks by halving. Handles are never negative, so -1 stands for
+ * no item.
+ */
+public class IntRingQueue {
+
+// ---------- Field members
+
+	public static final int NONE = -1;
+	public static final int DEFAULT_MIN_CAPACITY = 16;
+	public static final int DEFAULT_SHRINK_DIVISOR = 8;
+
+	private int[] items;
+	private int front, count, mask;
+	private int minCapacity, shrinkDivisor;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a queue with the default minimum capacity and shrink
+	 * divisor.
+	 */
+	public IntRingQueue() {
+		this(DEFAULT_MIN_CAPACITY, DEFAULT_SHRINK_DIVISOR);
+	}
+
+	/**
+	 * Creates a queue that never holds a buffer smaller than the given
+	 * capacity and halves its buffer only once fewer than
+	 * 1/shrinkDivisor of it is in use.
+	 * @param minCapacity Smallest buffer size, rounded up to a power of two
+	 * @param shrinkDivisor Fill ratio divisor for shrinking, at least 4
+	 */
+	public IntRingQueue(int minCapacity, int shrinkDivisor) {
+		if (minCapacity < 1 || minCapacity > 1 << 30)
+			throw new IllegalArgumentException(
+					"Minimum capacity must be from 1 to 2^30");
+		if (shrinkDivisor < 4)
+			throw new IllegalArgumentException(
+					"Shrink divisor must be at least 4");
+		this.minCapacity = powerOfTwo(minCapacity);
+		this.shrinkDivisor = shrinkDivisor;
+		clear();
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	public boolean isFull() {
+		return count == items.length;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public void clear() {
+		items = new int[minCapacity];
+		mask = minCapacity - 1;
+		front = 0;
+		count = 0;
+	}
+
+	public void insert(int o) {
+		if (isFull())
+			resize(2 * items.length);
+
+		items[(front + count) & mask] = o;
+		count++;
+	}
+
+	/**
+	 * Inserts several items at once, in order. The buffer is resized at
+	 * most once no matter how many items are inserted.
+	 * @param src Array holding the items
+	 * @param offset Position of the first item in the array
+	 * @param length Number of items to insert
+	 */
+	public void insertAll(int[] src, int offset, int length) {
+		if (count + length > items.length)
+			resize(powerOfTwo(count + length));
+
+		int rear = (front + count) & mask;
+		int firstPart = Math.min(length, items.length - rear);
+		System.arraycopy(src, offset, items, rear, firstPart);
+		System.arraycopy(src, offset + firstPart, items, 0, length - firstPart);
+		count += length;
+	}
+
+	/**
+	 * Removes the item at the front of the queue.
+	 * @return Front item or NONE if the queue is empty
+	 */
+	public int remove() {
+		if (isEmpty())
+			return NONE;
+
+		int fItem = items[front];
+		front = (front + 1) & mask;
+		count--;
+
+		if (items.length > minCapacity && count < items.length / shrinkDivisor)
+			resize(items.length / 2);
+		return fItem;
+	}
+
+	/**
+	 * Returns the item at the front of the queue without removing it.
+	 * @return Front item or NONE if the queue is empty
+	 */
+	public int query() {
+		if (isEmpty())
+			return NONE;
+		return items[front];
+	}
+
+	/**
+	 * Returns an item of the queue without removing it.
+	 * @param index Position in the queue, 0 at the front
+	 * @return Item at the position
+	 */
+	public int get(int index) {
+		if (index < 0 || index >= count)
+			throw new IndexOutOfBoundsException("Index " + index +
+					" in queue of size " + count);
+		return items[(front + index) & mask];
+	}
+
+	/**
+	 * Returns the items of the queue in order, from front to back.
+	 * @return New array of the items
+	 */
+	public int[] toArray() {
+		int[] result = new int[count];
+		int firstPart = Math.min(count, items.length - front);
+		System.arraycopy(items, front, result, 0, firstPart);
+		System.arraycopy(items, 0, result, firstPart, count - firstPart);
+		return result;
+	}
+
+	/**
+	 * Returns the buffer size that the queue currently holds.
+	 * @return Capacity of the buffer
+	 */
+	public int capacity() {
+		return items.length;
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Moves the items into a new buffer of the given size, starting at the
+	 * front of the buffer.
+	 * @param size New buffer size, a power of two
+	 */
+	private void resize(int size) {
+		int[] newQueue = new int[size];
+
+		int firstPart = Math.min(count, items.length - front);
+		System.arraycopy(items, front, newQueue, 0, firstPart);
+		System.arraycopy(items, 0, newQueue, firstPart, count - firstPart);
+
+		front = 0;
+		mask = size - 1;
+		items = newQueue;
+	}
+
+	/**
+	 * Rounds the given number up to the next power of two.
+	 * @param n Number to be rounded
+	 * @return Smallest power of two not less than n
+	 */
+	static int powerOfTwo(int n) {
+		return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+	}
+}
@@ -4,16 +4,15 @@
  * proper information and cannot be generic. Information that's passed in
  * to the constructor cannot be changed.
  *
+ * The information itself is kept in a row of a JobTable, so a Job is only
+ * a view of that row.
  */
 public class Job {
 	
 // ---------- Field members
 	
-	private int pid, arrivalTime;
-	private int cpuTimeRequired, cpuTimeRemaining, timeInSystem;
-	private int currentQueue;
-	private int waitingTime, waitTimeStart;
-	private int visualID;
+	private JobTable table;
+	private int handle;
 	
 	
 // ---------- Public methods
@@ -25,32 +24,26 @@ public class Job {
 	 * @param cpuTimeRequired Job's time required to completion to some time counter
 	 */
 	public Job(int pid, int arrivalTime, int cpuTimeRequired) {
-		this.pid = pid;
-		this.arrivalTime = arrivalTime;
-		this.cpuTimeRequired = cpuTimeRequired;
-		
-		cpuTimeRemaining = cpuTimeRequired;
-		currentQueue = 0;
-		timeInSystem = 0;
-		waitingTime = 0;
-		waitTimeStart = 0;
-		visualID = 0;
+		table = new JobTable(1);
+		handle = table.add(pid, arrivalTime, cpuTimeRequired);
 	}
 	
 	/**
-	 * Sets the visual ID of the job.
-	 * @param visualID ID of the visual component
+	 * Constructor for a view of a job that is already held in a table.
+	 * @param table Table that holds the job
+	 * @param handle Handle of the job in the table
 	 */
-	public void setVID(int visualID) {
-		this.visualID = visualID;
+	public Job(JobTable table, int handle) {
+		this.table = table;
+		this.handle = handle;
 	}
 	
 	/**
-	 * Gets the visual ID of the job.
-	 * @return ID of the visual component
+	 * Gets the handle of the job in the table that holds it.
+	 * @return Handle of the job
 	 */
-	public int getVID() {
-		return visualID;
+	public int getHandle() {
+		return handle;
 	}
 	
 	/**
@@ -58,7 +51,7 @@ public class Job {
 	 * @return Job's process ID
 	 */
 	public int getPID() {
-		return pid;
+		return table.getPID(handle);
 	}
 	
 	/**
@@ -66,7 +59,7 @@ public class Job {
 	 * @return Queue of job
 	 */
 	public int getCurrentQueue() {
-		return currentQueue;
+		return table.getCurrentQueue(handle);
 	}
 	
 	/**
@@ -74,7 +67,7 @@ public class Job {
 	 * @return Arrival time
 	 */
 	public int getArrivalTime() {
-		return arrivalTime;
+		return table.getArrivalTime(handle);
 	}
 	
 	/**
@@ -82,7 +75,7 @@ public class Job {
 	 * @return CPU processing time left
 	 */
 	public int getTimeRemaining() {
-		return cpuTimeRemaining;
+		return table.getTimeRemaining(handle);
 	}
 	
 	/**
@@ -90,7 +83,7 @@ public class Job {
 	 * @return Full time required to finish processing
 	 */
 	public int getTimeRequired() {
-		return cpuTimeRequired;
+		return table.getTimeRequired(handle);
 	}
 	
 	/**
@@ -98,7 +91,7 @@ public class Job {
 	 * @return Time spent in system
 	 */
 	public int getTimeInSystem() {
-		return timeInSystem;
+		return table.getTimeInSystem(handle);
 	}
 	
 	/**
@@ -106,7 +99,15 @@ public class Job {
 	 * @return Total queue time
 	 */
 	public int getWaitingTime() {
-		return waitingTime;
+		return table.getWaitingTime(handle);
+	}
+	
+	/**
+	 * Returns the system time when the job was first given the CPU.
+	 * @return Time of the first dispatch or JobTable.NONE if it never ran
+	 */
+	public int getFirstDispatch() {
+		return table.getFirstDispatch(handle);
 	}
 	
 	/**
@@ -114,7 +115,7 @@ public class Job {
 	 * @param input Time spent in system
 	 */
 	public void setTimeInSystem(int input) {
-		timeInSystem = input;
+		table.setTimeInSystem(handle, input);
 	}
 	
 	/**
@@ -122,7 +123,7 @@ public class Job {
 	 * @param timeIn System time when job starts to wait in queue
 	 */
 	public void clockInQueue(int timeIn) {
-		waitTimeStart = timeIn;
+		table.clockInQueue(handle, timeIn);
 	}
 	
 	/**
@@ -130,23 +131,32 @@ public class Job {
 	 * @param timeOut System time when job finishes waiting in a queue
 	 */
 	public void clockOutQueue(int timeOut) {
-		waitingTime += timeOut - waitTimeStart;
+		table.clockOutQueue(handle, timeOut);
 	}
 	
 	/**
 	 * Decrements the time the job has left towards finishing.
 	 */
 	public void decTimeRemaining() {
-		cpuTimeRemaining--;
+		table.decTimeRemaining(handle, 1);
+	}
+	
+	/**
+	 * Decrements the time the job has left towards finishing by several
+	 * ticks at once.
+	 * @param ticks Number of ticks the job was processed for
+	 */
+	public void decTimeRemaining(int ticks) {
+		table.decTimeRemaining(handle, ticks);
 	}
 	
 	/**
 	 * Increments the current queue of the job to the next level unless
 	 * the maximum queue level has been reached, to which it will simply
 	 * stay at that level.
+	 * @param numLevels Number of queue levels in the system
 	 */
-	public void incCurrentQueue() {
-		if (currentQueue < MFQ.MAX_QUEUE_LEVEL - 1)
-			currentQueue++;
+	public void incCurrentQueue(int numLevels) {
+		table.incCurrentQueue(handle, numLevels);
 	}
 }
@@ -0,0 +1,20 @@
+
+/**
+ * Supplies jobs to the simulation engine. Jobs must be handed out in the
+ * order of their arrival times.
+ */
+public interface JobSource {
+
+	/**
+	 * Returns whether or not the source has any jobs left.
+	 * @return Source has another job or not
+	 */
+	public boolean hasNextJob();
+
+	/**
+	 * Adds the next job of the source to the given table.
+	 * @param table Table that the job is added to
+	 * @return Handle of the next job in order of arrival
+	 */
+	public int nextJob(JobTable table);
+}
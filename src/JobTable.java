@@ -0,0 +1,290 @@
+import java.util.Arrays;
+
+/**
+ * Holds the information of many job processes as columns of primitive
+ * arrays, one row per job. Jobs are referred to by an int handle, which is
+ * the row of the job. Rows of jobs that left the system are released and
+ * reused by later jobs, so the table only grows with the number of jobs
+ * that are in the system at the same time.
+ */
+public class JobTable {
+
+// ---------- Field members
+
+	// Handle that refers to no job
+	public static final int NONE = -1;
+	private static final int DEFAULT_CAPACITY = 16;
+	// Number of arrays returned by columns()
+	static final int NUM_COLUMNS = 9;
+
+	private int[] pid, arrivalTime;
+	private int[] cpuTimeRequired, cpuTimeRemaining, timeInSystem;
+	private int[] currentQueue;
+	private int[] waitingTime, waitTimeStart;
+	private int[] firstDispatch;
+
+	private int[] freeRows;
+	private int numRows, numFree;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates an empty table with the default capacity.
+	 */
+	public JobTable() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty table with room for the given number of jobs before
+	 * it has to grow.
+	 * @param capacity Initial number of rows
+	 */
+	public JobTable(int capacity) {
+		capacity = Math.max(capacity, 1);
+		pid = new int[capacity];
+		arrivalTime = new int[capacity];
+		cpuTimeRequired = new int[capacity];
+		cpuTimeRemaining = new int[capacity];
+		timeInSystem = new int[capacity];
+		currentQueue = new int[capacity];
+		waitingTime = new int[capacity];
+		waitTimeStart = new int[capacity];
+		firstDispatch = new int[capacity];
+		freeRows = new int[capacity];
+		numRows = 0;
+		numFree = 0;
+	}
+
+	/**
+	 * Creates a copy of another table. Handles of the other table refer to
+	 * the same jobs in the copy.
+	 * @param other Table to be copied
+	 */
+	public JobTable(JobTable other) {
+		this(copyColumns(other.columns(), other.numRows),
+			 Arrays.copyOf(other.freeRows, other.numRows),
+			 other.numRows, other.numFree);
+	}
+
+	/**
+	 * Creates a table from the columns of a saved table, in the order of
+	 * columns(). The arrays are used as they are, not copied.
+	 * @param columns Columns of the table, at least numRows long
+	 * @param freeRows Released rows, as long as the columns
+	 * @param numRows Number of rows in use, released or not
+	 * @param numFree Number of released rows
+	 */
+	JobTable(int[][] columns, int[] freeRows, int numRows, int numFree) {
+		pid = columns[0];
+		arrivalTime = columns[1];
+		cpuTimeRequired = columns[2];
+		cpuTimeRemaining = columns[3];
+		timeInSystem = columns[4];
+		currentQueue = columns[5];
+		waitingTime = columns[6];
+		waitTimeStart = columns[7];
+		firstDispatch = columns[8];
+		this.freeRows = freeRows;
+		this.numRows = numRows;
+		this.numFree = numFree;
+	}
+
+	/**
+	 * Adds a job to the table.
+	 * @param pid Job process ID
+	 * @param arrivalTime Job's arrival time to some time counter
+	 * @param cpuTimeRequired Job's time required to completion
+	 * @return Handle of the job
+	 */
+	public int add(int pid, int arrivalTime, int cpuTimeRequired) {
+		int job;
+		if (numFree > 0) {
+			job = freeRows[--numFree];
+		} else {
+			if (numRows == this.pid.length) grow();
+			job = numRows++;
+		}
+		this.pid[job] = pid;
+		this.arrivalTime[job] = arrivalTime;
+		this.cpuTimeRequired[job] = cpuTimeRequired;
+		cpuTimeRemaining[job] = cpuTimeRequired;
+		currentQueue[job] = 0;
+		timeInSystem[job] = 0;
+		waitingTime[job] = 0;
+		waitTimeStart[job] = 0;
+		firstDispatch[job] = NONE;
+		return job;
+	}
+
+	/**
+	 * Releases the row of a job that left the system so it can be reused.
+	 * The handle must not be used afterwards.
+	 * @param job Handle of the job
+	 */
+	public void release(int job) {
+		freeRows[numFree++] = job;
+	}
+
+	/**
+	 * Returns the number of jobs in the table that were not released.
+	 * @return Number of jobs held
+	 */
+	public int size() {
+		return numRows - numFree;
+	}
+
+	/**
+	 * Returns the columns of the table in a fixed order, for saving the
+	 * table. The arrays are not copied and may be longer than the number
+	 * of rows in use.
+	 * @return Every column of the table
+	 */
+	int[][] columns() {
+		return new int[][] { pid, arrivalTime, cpuTimeRequired,
+				cpuTimeRemaining, timeInSystem, currentQueue, waitingTime,
+				waitTimeStart, firstDispatch };
+	}
+
+	/**
+	 * Returns the number of rows in use, counting released rows.
+	 * @return Rows in use
+	 */
+	int rowCount() {
+		return numRows;
+	}
+
+	/**
+	 * Returns the released rows, for saving the table. The array is not
+	 * copied and only the first freeCount() entries are in use.
+	 * @return Released rows
+	 */
+	int[] freeRows() {
+		return freeRows;
+	}
+
+	/**
+	 * Returns the number of released rows.
+	 * @return Released rows
+	 */
+	int freeCount() {
+		return numFree;
+	}
+
+	/**
+	 * Returns a Job object that reads and writes the row of the given job.
+	 * @param job Handle of the job
+	 * @return View of the job
+	 */
+	public Job view(int job) {
+		return new Job(this, job);
+	}
+
+	public int getPID(int job) {
+		return pid[job];
+	}
+
+	public int getArrivalTime(int job) {
+		return arrivalTime[job];
+	}
+
+	public int getTimeRequired(int job) {
+		return cpuTimeRequired[job];
+	}
+
+	public int getTimeRemaining(int job) {
+		return cpuTimeRemaining[job];
+	}
+
+	public int getCurrentQueue(int job) {
+		return currentQueue[job];
+	}
+
+	public int getTimeInSystem(int job) {
+		return timeInSystem[job];
+	}
+
+	public int getWaitingTime(int job) {
+		return waitingTime[job];
+	}
+
+	/**
+	 * Returns the system time when the job was first given the CPU.
+	 * @param job Handle of the job
+	 * @return Time of the first dispatch or NONE if it never ran
+	 */
+	public int getFirstDispatch(int job) {
+		return firstDispatch[job];
+	}
+
+	public void setTimeInSystem(int job, int input) {
+		timeInSystem[job] = input;
+	}
+
+	public void clockInQueue(int job, int timeIn) {
+		waitTimeStart[job] = timeIn;
+	}
+
+	public void clockOutQueue(int job, int timeOut) {
+		waitingTime[job] += timeOut - waitTimeStart[job];
+	}
+
+	/**
+	 * Records that the job was given the CPU. Only the first dispatch of
+	 * a job is kept.
+	 * @param job Handle of the job
+	 * @param clock System time of the dispatch
+	 */
+	public void markDispatched(int job, int clock) {
+		if (firstDispatch[job] == NONE) firstDispatch[job] = clock;
+	}
+
+	public void decTimeRemaining(int job, int ticks) {
+		cpuTimeRemaining[job] -= ticks;
+	}
+
+	/**
+	 * Increments the current queue of the job to the next level unless
+	 * the last level has been reached.
+	 * @param job Handle of the job
+	 * @param numLevels Number of queue levels in the system
+	 */
+	public void incCurrentQueue(int job, int numLevels) {
+		if (currentQueue[job] < numLevels - 1)
+			currentQueue[job]++;
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Copies the rows in use of every column.
+	 * @param columns Columns to be copied
+	 * @param numRows Number of rows in use
+	 * @return New columns exactly numRows long
+	 */
+	private static int[][] copyColumns(int[][] columns, int numRows) {
+		int[][] copy = new int[columns.length][];
+		for (int i = 0; i < columns.length; i++)
+			copy[i] = Arrays.copyOf(columns[i], numRows);
+		return copy;
+	}
+
+	/**
+	 * Doubles the number of rows of every column.
+	 */
+	private void grow() {
+		int size = Math.max(pid.length * 2, DEFAULT_CAPACITY);
+		pid = Arrays.copyOf(pid, size);
+		arrivalTime = Arrays.copyOf(arrivalTime, size);
+		cpuTimeRequired = Arrays.copyOf(cpuTimeRequired, size);
+		cpuTimeRemaining = Arrays.copyOf(cpuTimeRemaining, size);
+		timeInSystem = Arrays.copyOf(timeInSystem, size);
+		currentQueue = Arrays.copyOf(currentQueue, size);
+		waitingTime = Arrays.copyOf(waitingTime, size);
+		waitTimeStart = Arrays.copyOf(waitTimeStart, size);
+		firstDispatch = Arrays.copyOf(firstDispatch, size);
+		freeRows = Arrays.copyOf(freeRows, size);
+	}
+}
@@ -1,22 +1,28 @@
 import java.awt.Dimension;
-import java.awt.Font;
 import java.awt.Graphics;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 
 /**
  * Handles all of the data regarding GUI job elements. Objects of this
  * class handles animations of itself and must be updated to animate.
+ * They are only used on the event dispatch thread; where a job belongs
+ * is set from the latest FrameSnapshot. Elements are reused for new jobs
+ * once they have left the view, see reset(). An element remembers whether
+ * it changed since it was last drawn, so only changed areas need to be
+ * drawn again.
  */
 public class JobVisuals{
 	
 // ---------- Field members
 	
 	private static final int SPEED = 3;
+	private static final int TEXT_MARGIN = 40; // Room for long text
 	private Dimension position, newPosition;
 	private BufferedImage jobImage, activeImage;
 	private String jobStatus;
 	private int pid, remainingTime, placement, qLevel, qDepth, speedTime;
-	private boolean atNewPos;
+	private boolean atNewPos, leaving, changed;
 	
 	// States of animation
 	private static final int START 	= 0;
@@ -27,11 +33,6 @@ public class JobVisuals{
 	private static final int CPU 	= 5;
 	private static final int DONE	= 10;
 	
-	private static int q1Count = 0;
-	private static int q2Count = 0;
-	private static int q3Count = 0;
-	private static int q4Count = 0;
-	
 	
 // ---------- Public methods
 	
@@ -45,7 +46,19 @@ public class JobVisuals{
 	public JobVisuals(int pid, int cpuTimeRequired, int spdMultiplier) {
 		position = new Dimension(175,900);
 		newPosition = new Dimension(0,0);
-		
+		reset(pid, cpuTimeRequired, spdMultiplier, 1);
+	}
+	
+	/**
+	 * Sets the GUI job element up for another job, as if it were new. It
+	 * starts below the view under the GUI queue of the given level.
+	 * @param pid Job's process ID
+	 * @param cpuTimeRequired Time the job requires to finish
+	 * @param spdMultiplier The speed of the animation
+	 * @param level Queue level the element comes in from, 1 for the first
+	 */
+	public void reset(int pid, int cpuTimeRequired, int spdMultiplier,
+					  int level) {
 		this.pid = pid;
 		remainingTime = cpuTimeRequired;
 		jobStatus = "";
@@ -54,6 +67,9 @@ public class JobVisuals{
 		qLevel = 1;
 		qDepth = 0;
 		atNewPos = false;
+		leaving = false;
+		changed = true;
+		setPosition(175 + 200 * (Math.max(1, Math.min(level, 4)) - 1), 900);
 	}
 	
 	/**
@@ -64,14 +80,28 @@ public class JobVisuals{
 	 */
 	public boolean updateJobVisual() {
 		boolean isNotFinished;
+		int oldX = position.width, oldY = position.height;
 		pathSet();
 		moveToNewPos();
+		if (position.width != oldX || position.height != oldY) changed = true;
 		isNotFinished = !atNewPos;
 		//if (!isNotFinished) 
 		setStatus();
 		return isNotFinished;
 	}
 	
+	/**
+	 * Puts the GUI job element straight at the end of its animation path,
+	 * for drawing a frame without animating it.
+	 */
+	public void settle() {
+		pathSet();
+		setPosition(newPosition.width, newPosition.height);
+		atNewPos = true;
+		changed = true;
+		setStatus();
+	}
+	
 	/**
 	 * Sets the animation speed multiplier.
 	 * @param multiplier Integer multiplier
@@ -95,6 +125,41 @@ public class JobVisuals{
 	 */
 	public void setFinished() {
 		placement = DONE;
+		leaving = true;
+	}
+	
+	/**
+	 * Sets the animation path of the GUI job element out of the bottom of
+	 * the view, for a job that is still waiting but too deep in its queue
+	 * to be seen. A job taken off the CPU goes to the queue below the one
+	 * it came from.
+	 * @param depth Position in the queue that is out of view
+	 */
+	public void moveOutOfView(int depth) {
+		int level = placement == CPU ? qLevel + 1 : qLevel;
+		moveToQueue(level, depth);
+		leaving = true;
+	}
+	
+	/**
+	 * Returns whether the GUI job element has left the view and can be
+	 * reused.
+	 * @return Element is out of view or not
+	 */
+	public boolean isGone() {
+		return leaving && atNewPos;
+	}
+	
+	/**
+	 * Returns whether the GUI job element overlaps the given area.
+	 * @param area Area of the GUI
+	 * @return Element overlaps the area or not
+	 */
+	public boolean intersects(Rectangle area) {
+		return position.width < area.x + area.width &&
+			   position.width + jobImage.getWidth() + TEXT_MARGIN > area.x &&
+			   position.height < area.y + area.height &&
+			   position.height + jobImage.getHeight() > area.y;
 	}
 	
 	/**
@@ -115,65 +180,62 @@ public class JobVisuals{
 	public void moveToCPU() {
 		placement = CPU;
 		qDepth = 0;
-		
-		switch (qLevel) {
-			case 1:  q1Count--; break;
-			case 2:  q2Count--; break;
-			case 3:  q3Count--; break;
-			case 4:  q4Count--; break;
-			default: q4Count--;
-		}
+		leaving = false;
 	}
 	
 	/**
-	 * Sets the animation path of the GUI job element to the position of
-	 * the GUI queue of appropriate level.
+	 * Sets the animation path of the GUI job element to its place in the
+	 * GUI queue of the given level. Levels past the fourth are drawn in
+	 * the fourth queue.
+	 * @param level Queue level, 1 for the first queue
+	 * @param depth Position in the queue, 0 at the front
 	 */
-	public void moveToQueue() {
-		if (qLevel < 4) qLevel++;
-		else qLevel = 4;
+	public void moveToQueue(int level, int depth) {
+		qLevel = Math.max(1, Math.min(level, 4));
+		qDepth = depth;
+		leaving = false;
 		
 		switch (qLevel) {
-			case 1:
-				placement = Q1;
-				q1Count++;
-				qDepth = q1Count;
-				break;
-			case 2:
-				placement = Q2;
-				q2Count++;
-				qDepth = q2Count;
-				break;
-			case 3:
-				placement = Q3;
-				q3Count++;
-				qDepth = q3Count;
-				break;
-			case 4:
-				placement = Q4;
-				q4Count++;
-				qDepth = q4Count;
-				break;
-			default:
-				placement = Q4;
-				q4Count++;
-				qDepth = q4Count;
+			case 1:  placement = Q1; break;
+			case 2:  placement = Q2; break;
+			case 3:  placement = Q3; break;
+			default: placement = Q4;
 		}
 	}
 	
 	/**
-	 * Decrements the time of the GUI job element.
+	 * Sets the remaining time of the GUI job element.
+	 * @param remainingTime Remaining time integer
+	 */
+	public void setTimeLeft(int remainingTime) {
+		if (remainingTime != this.remainingTime) changed = true;
+		this.remainingTime = remainingTime;
+	}
+	
+	/**
+	 * Returns whether the GUI job element looks any different than when
+	 * it was last drawn.
+	 * @return Element changed or not
+	 */
+	public boolean hasChanged() {
+		return changed;
+	}
+	
+	/**
+	 * Marks the GUI job element as drawn the way it looks now.
 	 */
-	public void decTime() {
-		remainingTime--;
+	public void markDrawn() {
+		changed = false;
 	}
 	
 	/**
-	 * Decrements the depth of the GUI job element within a queue. This
-	 * causes the element to shift up in the animation.
+	 * Returns the area the GUI job element covers when drawn, its text
+	 * included.
+	 * @return Area of the element
 	 */
-	public void decQueueDepth() {
-		qDepth--;
+	public Rectangle getBounds() {
+		return new Rectangle(position.width, position.height,
+				jobImage.getWidth() + TEXT_MARGIN, jobImage.getHeight());
 	}
 	
 	/**
@@ -267,6 +329,7 @@ public class JobVisuals{
 	 * Sets the status of the GUI job element to print out.
 	 */
 	private void setStatus() {
+		String oldStatus = jobStatus;
 		switch (placement) {
 			case START:
 				jobStatus = "Starting...";
@@ -283,6 +346,7 @@ public class JobVisuals{
 			default:
 				jobStatus = "Unknown state";
 		}
+		if (!jobStatus.equals(oldStatus)) changed = true;
 	}
 	
 	/**
@@ -302,15 +366,15 @@ public class JobVisuals{
 				break;
 			case Q2:
 				newPosition = new Dimension(375,
-						140 + (qDepth * jobImage.getHeight()));
+						140 + ((qDepth + 1) * jobImage.getHeight()));
 				break;
 			case Q3:
 				newPosition = new Dimension(575,
-						140 + (qDepth * jobImage.getHeight())); 
+						140 + ((qDepth + 1) * jobImage.getHeight())); 
 				break;
 			case Q4:
 				newPosition = new Dimension(775,
-						140 + (qDepth * jobImage.getHeight()));
+						140 + ((qDepth + 1) * jobImage.getHeight()));
 				break;
 			case CPU:
 				newPosition = new Dimension(410,40);
@@ -326,19 +390,19 @@ public class JobVisuals{
 // ---------- Protected methods
 
 	/**
-	 * Handles drawing the text for the GUI job element. The text outputs
-	 * data regarding the GUI job element.
+	 * Handles drawing the text for the GUI job element from images of the
+	 * text kept in a cache, which is much faster than drawing the text.
 	 * @param g Buffer that all the drawing happens on
+	 * @param text Cache of the text in the font and color to be drawn in
 	 */
-	protected void drawText(Graphics g) {
-		g.setFont(g.getFont().deriveFont(Font.BOLD));
-		g.drawString("Job " + pid,
+	protected void drawText(Graphics g, TextCache text) {
+		text.drawString(g, "Job " + pid,
 				position.width + 10, position.height + 15);
-		g.drawString("Time left: " + remainingTime,
+		text.drawString(g, "Time left: " + remainingTime,
 				position.width + 10, position.height + 35);
-		g.drawString("Job status:",
+		text.drawString(g, "Job status:",
 				position.width + 10, position.height + 55);
-		g.drawString(jobStatus,
+		text.drawString(g, jobStatus,
 				position.width + 10, position.height + 70);
 	}
 	
@@ -0,0 +1,154 @@
+import java.util.Arrays;
+
+/**
+ * Counts latencies in a fixed number of log-linear buckets, in the manner
+ * of an HDR histogram. Values below 128 have a bucket each, and every
+ * power of two above that is split into 64 buckets, so a reported value
+ * is within 1/64 of the recorded one. The histogram never grows and
+ * recording a value allocates nothing.
+ *
+ * Histograms of separate runs are combined with add().
+ */
+public class LatencyHistogram {
+
+// ---------- Field members
+
+	// Values below 2^SUB_BITS are counted exactly
+	private static final int SUB_BITS = 7;
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+	private static final int HALF_COUNT = SUB_COUNT / 2;
+	// Enough buckets for every non-negative int
+	private static final int NUM_BUCKETS = bucketOf(Integer.MAX_VALUE) + 1;
+
+	private long[] counts;
+	private long totalCount;
+	private long sum;
+	private int min, max;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates an empty histogram.
+	 */
+	public LatencyHistogram() {
+		counts = new long[NUM_BUCKETS];
+		reset();
+	}
+
+	/**
+	 * Counts one value. Negative values are counted as zero.
+	 * @param value Latency in ticks
+	 */
+	public void record(int value) {
+		if (value < 0) value = 0;
+		counts[bucketOf(value)]++;
+		totalCount++;
+		sum += value;
+		if (value < min) min = value;
+		if (value > max) max = value;
+	}
+
+	/**
+	 * Adds every value counted by another histogram to this one.
+	 * @param other Histogram to be added
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			counts[i] += other.counts[i];
+		}
+		totalCount += other.totalCount;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Empties the histogram.
+	 */
+	public void reset() {
+		Arrays.fill(counts, 0);
+		totalCount = 0;
+		sum = 0;
+		min = Integer.MAX_VALUE;
+		max = 0;
+	}
+
+	/**
+	 * Returns the value below or at which the given percentage of the
+	 * counted values lie. The value is the highest one of its bucket,
+	 * but never more than the largest value counted.
+	 * @param percentile Percentage from 0 to 100
+	 * @return Value at the percentile or 0 if the histogram is empty
+	 */
+	public int getValueAtPercentile(double percentile) {
+		if (totalCount == 0) return 0;
+		double fraction = Math.min(Math.max(percentile, 0.0), 100.0) / 100.0;
+		long rank = Math.max(1, (long)Math.ceil(fraction * totalCount));
+		long seen = 0;
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return (int)Math.min(highestValueOf(i), max);
+		}
+		return max;
+	}
+
+	/**
+	 * Returns the number of values counted.
+	 * @return Number of values
+	 */
+	public long getCount() {
+		return totalCount;
+	}
+
+	/**
+	 * Returns the smallest value counted.
+	 * @return Smallest value or 0 if the histogram is empty
+	 */
+	public int getMin() {
+		return totalCount == 0 ? 0 : min;
+	}
+
+	/**
+	 * Returns the largest value counted.
+	 * @return Largest value or 0 if the histogram is empty
+	 */
+	public int getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the exact average of the values counted.
+	 * @return Average value or 0 if the histogram is empty
+	 */
+	public double getMean() {
+		return totalCount == 0 ? 0.0 : (double)sum / totalCount;
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Finds the bucket that counts the given value.
+	 * @param value Non-negative value
+	 * @return Index of the bucket
+	 */
+	private static int bucketOf(int value) {
+		if (value < SUB_COUNT) return value;
+		int shift = 31 - Integer.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+		return (shift + 1) * HALF_COUNT + (value >>> shift) - HALF_COUNT;
+	}
+
+	/**
+	 * Finds the highest value that is counted by the given bucket.
+	 * @param bucket Index of the bucket
+	 * @return Highest value of the bucket
+	 */
+	private static long highestValueOf(int bucket) {
+		if (bucket < SUB_COUNT) return bucket;
+		int shift = bucket / HALF_COUNT - 1;
+		long low = (long)(bucket % HALF_COUNT + HALF_COUNT) << shift;
+		return low + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,148 @@
+import java.util.Locale;
+
+/**
+ * Keeps latency histograms of response, waiting and turnaround time for
+ * every queue level a job finishes in. Unlike the averages of
+ * SimulationStats, the histograms show the tail of each latency.
+ *
+ * Response time is the time from arrival until the job first gets the
+ * CPU. Turnaround time is the time from arrival until the job departs, and
+ * waiting time is the part of it the job was not on the CPU.
+ */
+public class LatencyStats extends SimulationAdapter {
+
+// ---------- Field members
+
+	public static final int RESPONSE = 0;
+	public static final int WAITING = 1;
+	public static final int TURNAROUND = 2;
+	private static final String[] METRIC_NAMES =
+			{ "Response", "Waiting", "Turnaround" };
+	private static final double[] PERCENTILES = { 50.0, 99.0, 99.9 };
+
+	private JobTable jobs;
+	// One histogram per level and metric
+	private LatencyHistogram[][] histograms;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates empty histograms for the given number of queue levels.
+	 * @param numLevels Number of queue levels in the system
+	 */
+	public LatencyStats(int numLevels) {
+		histograms = new LatencyHistogram[numLevels][METRIC_NAMES.length];
+		for (int level = 0; level < numLevels; level++) {
+			for (int metric = 0; metric < METRIC_NAMES.length; metric++) {
+				histograms[level][metric] = new LatencyHistogram();
+			}
+		}
+	}
+
+	public void onStart(JobTable jobs) {
+		this.jobs = jobs;
+	}
+
+	/**
+	 * Counts the latencies of the departing job under its last queue.
+	 */
+	public void onDeparture(int clock, int job) {
+		int arrival = jobs.getArrivalTime(job);
+		int turnaround = jobs.getTimeInSystem(job) - arrival;
+		LatencyHistogram[] level = histograms[jobs.getCurrentQueue(job)];
+		level[RESPONSE].record(jobs.getFirstDispatch(job) - arrival);
+		level[WAITING].record(turnaround - jobs.getTimeRequired(job));
+		level[TURNAROUND].record(turnaround);
+	}
+
+	/**
+	 * Returns the histogram of a metric for jobs that finished in the
+	 * given queue.
+	 * @param level Queue level the jobs finished in
+	 * @param metric RESPONSE, WAITING or TURNAROUND
+	 * @return Histogram of the metric
+	 */
+	public LatencyHistogram getHistogram(int level, int metric) {
+		return histograms[level][metric];
+	}
+
+	/**
+	 * Returns the histogram of a metric over every queue level.
+	 * @param metric RESPONSE, WAITING or TURNAROUND
+	 * @return New histogram of the metric
+	 */
+	public LatencyHistogram getTotal(int metric) {
+		LatencyHistogram total = new LatencyHistogram();
+		for (LatencyHistogram[] level : histograms) {
+			total.add(level[metric]);
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the number of queue levels that are kept apart.
+	 * @return Number of queue levels
+	 */
+	public int getNumLevels() {
+		return histograms.length;
+	}
+
+	/**
+	 * Adds the histograms of another run to these ones, such as to combine
+	 * the results of several runs.
+	 * @param other Latencies of the other run with as many queue levels
+	 */
+	public void add(LatencyStats other) {
+		if (other.histograms.length != histograms.length)
+			throw new IllegalArgumentException("Number of queue levels differ");
+		for (int level = 0; level < histograms.length; level++) {
+			for (int metric = 0; metric < METRIC_NAMES.length; metric++) {
+				histograms[level][metric].add(other.histograms[level][metric]);
+			}
+		}
+	}
+
+	/**
+	 * Appends a table with the count, percentiles and maximum of every
+	 * metric, first per queue level and then over all levels.
+	 * @param sb Builder the table is appended to
+	 */
+	public void appendReport(StringBuilder sb) {
+		String nl = System.lineSeparator();
+		sb.append(String.format(Locale.ROOT, "%5s   %-10s   %10s   %8s   %8s   %8s   %8s",
+				"Queue", "Metric", "Count", "p50", "p99", "p99.9", "Max"));
+		sb.append(nl);
+		for (int level = 0; level < histograms.length; level++) {
+			for (int metric = 0; metric < METRIC_NAMES.length; metric++) {
+				appendRow(sb, Integer.toString(level + 1), metric,
+						histograms[level][metric]);
+			}
+		}
+		for (int metric = 0; metric < METRIC_NAMES.length; metric++) {
+			appendRow(sb, "All", metric, getTotal(metric));
+		}
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Appends one row of the report.
+	 * @param sb Builder the row is appended to
+	 * @param queue Name of the queue level
+	 * @param metric Metric of the histogram
+	 * @param histogram Histogram to be reported
+	 */
+	private void appendRow(StringBuilder sb, String queue, int metric,
+						   LatencyHistogram histogram) {
+		sb.append(String.format(Locale.ROOT, "%5s   %-10s   %10d",
+				queue, METRIC_NAMES[metric], histogram.getCount()));
+		for (double p : PERCENTILES) {
+			sb.append(String.format(Locale.ROOT, "   %8d",
+					histogram.getValueAtPercentile(p)));
+		}
+		sb.append(String.format(Locale.ROOT, "   %8d", histogram.getMax()));
+		sb.append(System.lineSeparator());
+	}
+}
@@ -0,0 +1,90 @@
+
+/**
+ * Keeps track of which queue levels hold jobs using one bit per level, so
+ * the highest priority level with a job is found with a bit scan instead
+ * of checking every level. Levels are grouped into 64-bit words and a
+ * summary word marks which of those words are non-empty, which allows up
+ * to 64 * 64 levels while finding the first level in two scans.
+ */
+public class LevelBitmap {
+
+// ---------- Field members
+
+	public static final int MAX_LEVELS = 64 * 64;
+	private long[] words;
+	private long summary;
+	private int numLevels;
+
+
+// ---------- Public methods
+
+	/**
+	 * Constructor requires the number of levels to keep track of. All
+	 * levels start out empty.
+	 * @param numLevels Number of levels, at most MAX_LEVELS
+	 */
+	public LevelBitmap(int numLevels) {
+		if (numLevels < 1 || numLevels > MAX_LEVELS)
+			throw new IllegalArgumentException(
+					"Number of levels must be from 1 to " + MAX_LEVELS);
+		this.numLevels = numLevels;
+		words = new long[(numLevels + 63) >>> 6];
+		summary = 0;
+	}
+
+	/**
+	 * Returns the number of levels that are kept track of.
+	 * @return Number of levels
+	 */
+	public int getNumLevels() {
+		return numLevels;
+	}
+
+	/**
+	 * Marks the given level as holding jobs.
+	 * @param level Level that is non-empty
+	 */
+	public void set(int level) {
+		int w = level >>> 6;
+		words[w] |= 1L << level;
+		summary |= 1L << w;
+	}
+
+	/**
+	 * Marks the given level as empty.
+	 * @param level Level that is empty
+	 */
+	public void clear(int level) {
+		int w = level >>> 6;
+		words[w] &= ~(1L << level);
+		if (words[w] == 0) summary &= ~(1L << w);
+	}
+
+	/**
+	 * Returns whether or not the given level holds jobs.
+	 * @param level Level to be checked
+	 * @return Level is non-empty or not
+	 */
+	public boolean isSet(int level) {
+		return (words[level >>> 6] & (1L << level)) != 0;
+	}
+
+	/**
+	 * Returns whether or not every level is empty.
+	 * @return All levels empty or not
+	 */
+	public boolean isEmpty() {
+		return summary == 0;
+	}
+
+	/**
+	 * Returns the highest priority (lowest numbered) level that holds
+	 * jobs.
+	 * @return First non-empty level or -1 if all levels are empty
+	 */
+	public int first() {
+		if (summary == 0) return -1;
+		int w = Long.numberOfTrailingZeros(summary);
+		return (w << 6) + Long.numberOfTrailingZeros(words[w]);
+	}
+}
@@ -0,0 +1,61 @@
+import java.util.SplittableRandom;
+
+/**
+ * Bursty arrivals as a two-state Markov-modulated Poisson process. The
+ * process switches between a quiet state and a burst state, each with its
+ * own arrival rate, and stays in a state for an exponentially distributed
+ * time.
+ */
+public class MMPPArrivals extends ArrivalModel {
+
+// ---------- Field members
+
+	private static final int QUIET = 0;
+	private static final int BURST = 1;
+
+	private double[] rate;
+	private double[] meanLength;
+	private int state;
+	// Time the current state ends, negative before the first arrival
+	private double stateEnd;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a bursty process that starts in the quiet state.
+	 * @param quietRate Arrivals per tick in the quiet state, may be 0
+	 * @param burstRate Arrivals per tick in the burst state
+	 * @param meanQuietLength Average ticks spent in the quiet state
+	 * @param meanBurstLength Average ticks spent in the burst state
+	 */
+	public MMPPArrivals(double quietRate, double burstRate,
+						double meanQuietLength, double meanBurstLength) {
+		if (!(quietRate >= 0))
+			throw new IllegalArgumentException("Quiet rate must not be negative");
+		if (!(burstRate > 0))
+			throw new IllegalArgumentException("Burst rate must be positive");
+		if (!(meanQuietLength > 0) || !(meanBurstLength > 0))
+			throw new IllegalArgumentException("State lengths must be positive");
+		rate = new double[] { quietRate, burstRate };
+		meanLength = new double[] { meanQuietLength, meanBurstLength };
+		state = QUIET;
+		stateEnd = -1.0;
+	}
+
+	public double nextArrival(double now, SplittableRandom random) {
+		if (stateEnd < 0) stateEnd = now + exponential(random, meanLength[state]);
+		double time = now;
+		while (true) {
+			// Arrivals are memoryless, so one that falls past the end of the
+			// state is simply drawn again in the next state
+			if (rate[state] > 0) {
+				double arrival = time + exponential(random, 1.0 / rate[state]);
+				if (arrival < stateEnd) return arrival;
+			}
+			time = stateEnd;
+			state = state == QUIET ? BURST : QUIET;
+			stateEnd = time + exponential(random, meanLength[state]);
+		}
+	}
+}
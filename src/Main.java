@@ -1,12 +1,63 @@
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import javax.management.JMException;
 
 public class Main {
 	
+	// Options of the headless run
+	private static boolean parallel, quiet, trace, latency, jmx;
+	private static long generateJobs = 0;
+	private static long seed = 1;
+	private static int checkpointInterval = 0;
+	private static int frameInterval = 0;
+	private static String resumeFile = null;
+	private static String whatIf = null;
+	private static String forkAt = null;
+	
 	public static void main(String[] args) throws InterruptedException {       
 		PrintWriter pw = null;
 		Scanner fileInput = null;
 		MFQ vm = null;
+		boolean headless = false;
+		
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (arg.equals("-nogui")) headless = true;
+			else if (arg.equals("-parallel")) parallel = true;
+			else if (arg.equals("-quiet")) quiet = true;
+			else if (arg.equals("-trace")) trace = true;
+			else if (arg.equals("-latency")) latency = true;
+			else if (arg.equals("-jmx")) jmx = true;
+			else if (arg.equals("-generate") && i + 1 < args.length)
+				generateJobs = Long.parseLong(args[++i]);
+			else if (arg.equals("-seed") && i + 1 < args.length)
+				seed = Long.parseLong(args[++i]);
+			else if (arg.equals("-checkpoint") && i + 1 < args.length)
+				checkpointInterval = Integer.parseInt(args[++i]);
+			else if (arg.equals("-frames") && i + 1 < args.length)
+				frameInterval = Integer.parseInt(args[++i]);
+			else if (arg.equals("-resume") && i + 1 < args.length)
+				resumeFile = args[++i];
+			else if (arg.equals("-whatif") && i + 1 < args.length)
+				whatIf = args[++i];
+			else if (arg.equals("-forkat") && i + 1 < args.length)
+				forkAt = args[++i];
+		}
+		
+		if (headless && whatIf != null) {
+			runWhatIf();
+			return;
+		}
+		if (headless) {
+			runHeadless();
+			return;
+		}
 		
 		try {
 			pw = new PrintWriter(new FileWriter("output.txt"));
@@ -23,4 +74,277 @@ public class Main {
 		pw.close();
 		fileInput.close();
 	}
+	
+	/**
+	 * Runs the engine only, without loading any of the GUI. The event table
+	 * is written by a background thread. The options are:
+	 * <ul>
+	 * <li>-parallel: parse the input on all cores</li>
+	 * <li>-quiet: leave out the console output</li>
+	 * <li>-trace: also write a binary trace to output.bin</li>
+	 * <li>-latency: print latency percentiles per queue level at the end</li>
+	 * <li>-jmx: show the progress of the simulation as an MBean</li>
+	 * <li>-generate n: simulate n generated jobs instead of input.txt, with
+	 * Poisson arrivals and exponential CPU times at 80% load</li>
+	 * <li>-seed n: seed of the generated jobs</li>
+	 * <li>-checkpoint n: save a snapshot to output.ckpt every n ticks</li>
+	 * <li>-resume file: go on from a snapshot, using the same input and
+	 * seed as the run that saved it. output.txt and output.bin are cut
+	 * back to where they were when the snapshot was saved and continued</li>
+	 * <li>-whatif level=q1,q2,...: see runWhatIf()</li>
+	 * <li>-forkat t: with -whatif, fork the branches at system time t</li>
+	 * <li>-frames n: draw a frame every n ticks into the folder "frames",
+	 * not together with -checkpoint</li>
+	 * </ul>
+	 */
+	private static void runHeadless() {
+		if (frameInterval > 0 && checkpointInterval > 0) {
+			System.out.println("-frames and -checkpoint cannot be used " +
+					"together. Program will now exit.");
+			System.exit(1);
+		}
+		int threads = parallel ? Runtime.getRuntime().availableProcessors() : 0;
+		Writer console = quiet ? null :
+				new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+		EngineSnapshot resumed = null;
+		if (resumeFile != null) {
+			try {
+				resumed = EngineSnapshot.read(Paths.get(resumeFile));
+			} catch (IOException e) {
+				System.out.println("Snapshot could not be read: " +
+						e.getMessage());
+				System.exit(1);
+			}
+		}
+		
+		try (MappedJobSource input = generateJobs > 0 ? null :
+					new MappedJobSource(new File("input.txt").toPath(), threads);
+			 ChannelWriter file = openLog(resumed);
+			 BinaryTraceWriter traceWriter = trace ? openTrace(resumed) : null) {
+			JobSource source = input != null ? input : newGenerator();
+			AsyncEventLog log = new AsyncEventLog(console, file);
+			if (resumed != null) log.setFileLength(resumed.getLogLength());
+			SimulationEngine engine = resumed == null ?
+					new SimulationEngine(source, log) :
+					new SimulationEngine(source, log, resumed);
+			if (traceWriter != null) engine.addListener(traceWriter);
+			LatencyStats latencies = null;
+			if (latency) {
+				latencies = new LatencyStats(engine.getNumLevels());
+				engine.addListener(latencies);
+			}
+			SimulationMonitor monitor = null;
+			if (jmx) {
+				monitor = new SimulationMonitor(engine);
+				engine.addListener(monitor);
+				monitor.register();
+			}
+			if (checkpointInterval > 0) {
+				try (Checkpointer checkpointer = new Checkpointer(
+							Paths.get("output.ckpt"), checkpointInterval)) {
+					checkpointer.setOutputs(log, traceWriter);
+					checkpointer.run(engine);
+				}
+			} else if (frameInterval > 0) {
+				try (FrameExporter exporter = new FrameExporter(
+							new File("frames"), frameInterval,
+							SceneRenderer.load(new File("images")))) {
+					exporter.run(engine);
+				}
+			} else {
+				engine.run();
+			}
+			if (monitor != null) monitor.unregister();
+			
+			if (latencies != null) {
+				StringBuilder sb = new StringBuilder();
+				latencies.appendReport(sb);
+				System.out.print(sb);
+			}
+			
+		} catch (NoSuchFileException e) {
+			System.out.println("Input file could not be found." +
+					"Program will now exit.");
+			System.exit(1);
+		} catch (IOException e) {
+			System.out.println("Simulation failed: " + e.getMessage());
+			System.exit(1);
+		} catch (JMException e) {
+			System.out.println("Monitor could not be registered: " +
+					e.getMessage());
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Runs one branch per quantum given for a queue level, all starting
+	 * from the snapshot given with -resume or else from the start, and
+	 * prints the statistics of every branch. The level counts from 1, so
+	 * "-whatif 3=4,8,16,32" tries four quanta for the third queue. With
+	 * -forkat the simulation is first run on from there up to the given
+	 * time, and the branches start from that time.
+	 */
+	private static void runWhatIf() {
+		EngineSnapshot snapshot;
+		try {
+			snapshot = resumeFile != null ?
+					EngineSnapshot.read(Paths.get(resumeFile)) :
+					EngineSnapshot.initial(SimulationEngine.DEFAULT_QUEUE_LEVELS);
+		} catch (IOException e) {
+			System.out.println("Snapshot could not be read: " +
+					e.getMessage());
+			System.exit(1);
+			return;
+		}
+		
+		List<WhatIfRunner.Scenario> scenarios;
+		int forkTime = -1;
+		try {
+			scenarios = parseScenarios(snapshot.getNumLevels());
+			if (forkAt != null) {
+				forkTime = Integer.parseInt(forkAt.trim());
+				if (forkTime < snapshot.getClock())
+					throw new IllegalArgumentException("-forkat " + forkTime +
+							" is before the snapshot at " + snapshot.getClock());
+			}
+		} catch (IllegalArgumentException e) {
+			System.out.println("Usage: -whatif level=quantum,quantum,... " +
+					"[-forkat time] (" + e.getMessage() + ")");
+			System.exit(1);
+			return;
+		}
+		
+		try {
+			if (forkTime >= 0) snapshot = forkAt(snapshot, forkTime);
+			WhatIfRunner runner = new WhatIfRunner(snapshot,
+					sourcesAt(snapshot));
+			StringBuilder sb = new StringBuilder();
+			WhatIfRunner.appendReport(sb, runner.run(scenarios));
+			System.out.print(sb);
+			
+		} catch (IOException e) {
+			System.out.println("What-if runs failed: " + e.getMessage());
+			System.exit(1);
+		} catch (RuntimeException e) {
+			System.out.println("What-if runs failed: " + e);
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Parses the scenarios of the -whatif option.
+	 * @param numLevels Number of queue levels of the simulation
+	 * @return One scenario per quantum given
+	 * @throws IllegalArgumentException Option is not in the right form or
+	 * the level does not exist
+	 */
+	private static List<WhatIfRunner.Scenario> parseScenarios(int numLevels) {
+		String[] parts = whatIf.split("=");
+		if (parts.length != 2)
+			throw new IllegalArgumentException("expected one \"=\"");
+		int level = Integer.parseInt(parts[0].trim()) - 1;
+		if (level < 0 || level >= numLevels)
+			throw new IllegalArgumentException("level must be from 1 to " +
+					numLevels);
+		List<WhatIfRunner.Scenario> scenarios =
+				new ArrayList<WhatIfRunner.Scenario>();
+		for (String quantum : parts[1].split(",")) {
+			int ticks = Integer.parseInt(quantum.trim());
+			scenarios.add(new WhatIfRunner.Scenario("Q" + (level + 1) +
+					" = " + ticks).setQuantum(level, ticks));
+		}
+		return scenarios;
+	}
+	
+	/**
+	 * Runs the simulation on from a snapshot up to the given time and
+	 * takes a new snapshot there.
+	 * @param from Snapshot to start from
+	 * @param clock System time to fork at, not before the snapshot
+	 * @return Snapshot at that time, or at the end if the simulation
+	 * finishes before
+	 * @throws IOException Input could not be read
+	 */
+	private static EngineSnapshot forkAt(EngineSnapshot from, int clock)
+			throws IOException {
+		JobSource source = sourcesAt(from).open();
+		try {
+			SimulationEngine engine = new SimulationEngine(source,
+					new SimulationAdapter() {}, from);
+			engine.start();
+			engine.advanceTo(clock);
+			return engine.snapshot();
+		} finally {
+			if (source instanceof Closeable) ((Closeable)source).close();
+		}
+	}
+	
+	/**
+	 * Returns a factory of sources for simulations resumed from a
+	 * snapshot. The line of the snapshot's next job in input.txt is found
+	 * once, and every source opens the file there.
+	 * @param snapshot Snapshot the simulations resume from
+	 * @return Factory of sources of the input
+	 * @throws IOException Input could not be read
+	 */
+	private static WhatIfRunner.SourceFactory sourcesAt(
+			EngineSnapshot snapshot) throws IOException {
+		final Path input = new File("input.txt").toPath();
+		final long forkJob = snapshot.getJobsRead();
+		final long forkOffset = generateJobs > 0 ? 0 :
+				MappedJobSource.findJob(input, forkJob);
+		return new WhatIfRunner.SourceFactory() {
+			public JobSource open() throws IOException {
+				if (generateJobs > 0) return newGenerator();
+				return new MappedJobSource(input, 0, forkOffset, forkJob);
+			}
+		};
+	}
+	
+	/**
+	 * Opens output.txt for the event log, or continues it from where it
+	 * was when the snapshot of a resumed run was saved.
+	 * @param resumed Snapshot the run resumes from or null
+	 * @return Writer of the event log
+	 * @throws IOException File could not be opened or continued
+	 */
+	private static ChannelWriter openLog(EngineSnapshot resumed)
+			throws IOException {
+		Path path = new File("output.txt").toPath();
+		if (resumed == null) return new ChannelWriter(path);
+		if (resumed.getLogLength() == EngineSnapshot.NO_OUTPUT)
+			throw new IOException("Snapshot does not record where " +
+					"output.txt ended");
+		return new ChannelWriter(path, resumed.getLogLength());
+	}
+	
+	/**
+	 * Opens output.bin for the binary trace, or continues it from where it
+	 * was when the snapshot of a resumed run was saved.
+	 * @param resumed Snapshot the run resumes from or null
+	 * @return Writer of the trace
+	 * @throws IOException File could not be opened or continued
+	 */
+	private static BinaryTraceWriter openTrace(EngineSnapshot resumed)
+			throws IOException {
+		if (resumed == null)
+			return new BinaryTraceWriter(new FileOutputStream("output.bin"));
+		if (resumed.getTraceLength() == EngineSnapshot.NO_OUTPUT)
+			throw new IOException("Snapshot does not record where " +
+					"output.bin ended");
+		return new BinaryTraceWriter(Channels.newOutputStream(
+				ChannelWriter.openAt(new File("output.bin").toPath(),
+									 resumed.getTraceLength())),
+				resumed.getTraceLength(), resumed.getTraceClock(),
+				resumed.getTracePID());
+	}
+	
+	/**
+	 * Creates the generator of the -generate option.
+	 * @return Source of generated jobs
+	 */
+	private static JobSource newGenerator() {
+		return new WorkloadGenerator(generateJobs, new PoissonArrivals(0.1),
+				new ExponentialService(7.5), seed);
+	}
 }
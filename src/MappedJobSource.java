@@ -0,0 +1,434 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Reads jobs from a trace file in the same format as ScannerJobSource, but
+ * decodes the numbers straight from the bytes of a memory-mapped file
+ * instead of creating strings for every line.
+ *
+ * The file is handled in chunks that are split on line boundaries. By
+ * default the chunks are parsed on the calling thread as the jobs are
+ * needed. In parallel mode a pool of threads parses the next chunks ahead
+ * of time while earlier ones are being handed out, keeping only a few
+ * chunks in memory at once.
+ *
+ * A file can also be opened at the line of some job, found once with
+ * findJob(), so that many sources can start from the middle of a large
+ * file without going through the lines before it. Skipping jobs with
+ * skipTo() only counts lines, it does not decode them.
+ */
+public class MappedJobSource implements SkippableJobSource, Closeable {
+
+// ---------- Field members
+
+	private static final int CHUNK_SIZE = 1 << 22;
+	// Longest line that may cross the end of a chunk
+	private static final int MAX_LINE = 4096;
+
+	private FileChannel channel;
+	private long fileSize, nextChunkStart;
+	private ExecutorService pool;
+	private ArrayDeque<Future<Chunk>> pending;
+	private int maxPending;
+	private Chunk chunk;
+	private int index;
+	private long nextJob; // Number of the job at index
+
+
+// ---------- Public methods
+
+	/**
+	 * Opens the given trace file to be parsed on the calling thread.
+	 * @param file Trace file to read jobs from
+	 * @throws IOException File could not be opened
+	 */
+	public MappedJobSource(Path file) throws IOException {
+		this(file, 0);
+	}
+
+	/**
+	 * Opens the given trace file to be parsed by the given number of
+	 * threads. With 0 threads the file is parsed on the calling thread.
+	 * @param file Trace file to read jobs from
+	 * @param threads Number of parsing threads
+	 * @throws IOException File could not be opened
+	 */
+	public MappedJobSource(Path file, int threads) throws IOException {
+		this(file, threads, 0, 0);
+	}
+
+	/**
+	 * Opens the given trace file at the line of some job, to be parsed by
+	 * the given number of threads.
+	 * @param file Trace file to read jobs from
+	 * @param threads Number of parsing threads
+	 * @param offset Byte offset of the line of the job, see findJob()
+	 * @param job Number of the job, counted from 0 at the first job
+	 * @throws IOException File could not be opened
+	 */
+	public MappedJobSource(Path file, int threads, long offset, long job)
+			throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		fileSize = channel.size();
+		if (offset < 0 || offset > fileSize)
+			throw new IllegalArgumentException("Offset is not in the file");
+		nextChunkStart = offset;
+		chunk = new Chunk();
+		index = 0;
+		nextJob = job;
+
+		if (threads > 0) {
+			pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "MappedJobSource parser");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			pending = new ArrayDeque<Future<Chunk>>();
+			maxPending = 2 * threads;
+		}
+	}
+
+	/**
+	 * Finds the line of a job in a trace file.
+	 * @param file Trace file to be searched
+	 * @param job Number of the job, counted from 0 at the first job
+	 * @return Byte offset of the line of the job, or the size of the file
+	 * if it has no more jobs than that
+	 * @throws IOException File could not be read
+	 */
+	public static long findJob(Path file, long job) throws IOException {
+		try (MappedJobSource source = new MappedJobSource(file)) {
+			source.skipTo(job);
+			return source.getOffset();
+		}
+	}
+
+	/**
+	 * Returns whether or not there is another job in the file.
+	 * @return File has another job or not
+	 */
+	public boolean hasNextJob() {
+		while (index == chunk.count) {
+			if (!loadNextChunk()) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the next job of the file to the table.
+	 * @param table Table that the job is added to
+	 * @return Handle of the job that was read
+	 */
+	public int nextJob(JobTable table) {
+		if (!hasNextJob())
+			throw new IllegalStateException("No jobs left in the file");
+		int job = table.add(chunk.pid[index], chunk.arrivalTime[index],
+							chunk.timeRequired[index]);
+		index++;
+		nextJob++;
+		return job;
+	}
+
+	/**
+	 * Passes over jobs up to the given one. Whole chunks of the file are
+	 * passed over by counting their lines without decoding them.
+	 * @param job Number of the next job to be handed out
+	 * @return Number of the next job, less than job if the file ran out
+	 */
+	public long skipTo(long job) {
+		if (job < nextJob)
+			throw new IllegalArgumentException("Source is past job " + job);
+		while (nextJob < job) {
+			if (index == chunk.count) {
+				if (pool == null && skipChunk(job - nextJob)) continue;
+				if (!loadNextChunk()) break;
+			}
+			int skipped = (int)Math.min(job - nextJob, chunk.count - index);
+			index += skipped;
+			nextJob += skipped;
+		}
+		return nextJob;
+	}
+
+	/**
+	 * Returns the byte offset of the line of the next job.
+	 * @return Offset in the file, or the size of the file after the last
+	 * job
+	 */
+	public long getOffset() {
+		if (!hasNextJob()) return fileSize;
+		return chunk.mapStart + chunk.lineStart[index];
+	}
+
+	/**
+	 * Closes the file and stops the parsing threads.
+	 * @throws IOException File could not be closed
+	 */
+	public void close() throws IOException {
+		if (pool != null) pool.shutdownNow();
+		channel.close();
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Passes over the next chunk of the file if all of its jobs are to be
+	 * skipped. Only used without parsing threads.
+	 * @param count Number of jobs still to be skipped
+	 * @return Chunk was passed over or not
+	 */
+	private boolean skipChunk(long count) {
+		if (nextChunkStart >= fileSize) return false;
+		try {
+			int jobs = chunk.countLines(channel, nextChunkStart,
+					nextChunkStart + CHUNK_SIZE, fileSize);
+			if (jobs > count) return false;
+			nextChunkStart += CHUNK_SIZE;
+			nextJob += jobs;
+			index = 0;
+			return true;
+		} catch (IOException e) {
+			throw new IllegalStateException("Trace file could not be read", e);
+		}
+	}
+
+	/**
+	 * Replaces the current chunk with the next chunk of the file.
+	 * @return Another chunk was loaded or not
+	 */
+	private boolean loadNextChunk() {
+		try {
+			if (pool == null) {
+				if (nextChunkStart >= fileSize) return false;
+				long start = nextChunkStart;
+				nextChunkStart += CHUNK_SIZE;
+				chunk.parse(channel, start, nextChunkStart, fileSize);
+				index = 0;
+				return true;
+			}
+
+			while (pending.size() < maxPending && nextChunkStart < fileSize) {
+				final long start = nextChunkStart;
+				nextChunkStart += CHUNK_SIZE;
+				pending.add(pool.submit(new Callable<Chunk>() {
+					public Chunk call() throws IOException {
+						Chunk parsed = new Chunk();
+						parsed.parse(channel, start, start + CHUNK_SIZE,
+									 fileSize);
+						return parsed;
+					}
+				}));
+			}
+			if (pending.isEmpty()) return false;
+			chunk = pending.remove().get();
+			index = 0;
+			return true;
+
+		} catch (IOException e) {
+			throw new IllegalStateException("Trace file could not be read", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException)e.getCause();
+			throw new IllegalStateException("Trace file could not be read",
+											e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while reading", e);
+		}
+	}
+
+
+// ---------- Inner classes
+
+	/**
+	 * Jobs of one part of the file, kept as columns of primitives.
+	 */
+	private static class Chunk {
+
+		private int[] arrivalTime = new int[1024];
+		private int[] pid = new int[1024];
+		private int[] timeRequired = new int[1024];
+		private int[] lineStart = new int[1024]; // From mapStart
+		private int count;
+		private long mapStart;
+		private MappedByteBuffer buf;
+		// Result of the last parseInt call
+		private int value;
+
+		/**
+		 * Parses every line that starts within the given range of the
+		 * file. The first line of the range is skipped if it started in
+		 * the range before, so neighbouring chunks never share a line.
+		 * @param channel File to be parsed
+		 * @param start First byte of the range
+		 * @param end Byte after the range
+		 * @param fileSize Size of the file
+		 * @throws IOException File could not be mapped
+		 */
+		void parse(FileChannel channel, long start, long end, long fileSize)
+				throws IOException {
+			int pos = map(channel, start, end, fileSize);
+			int limit = (int)(Math.min(end, fileSize) - mapStart);
+			count = 0;
+
+			while (pos < limit) {
+				int line = pos;
+				pos = skipBlanks(pos);
+				if (pos >= buf.limit()) break;
+				if (buf.get(pos) == '\n') {
+					pos++;
+					continue;
+				}
+				if (count == pid.length) grow();
+
+				lineStart[count] = line;
+				pos = parseInt(pos, mapStart);
+				arrivalTime[count] = value;
+				pos = parseInt(skipBlanks(pos), mapStart);
+				pid[count] = value;
+				pos = parseInt(skipBlanks(pos), mapStart);
+				timeRequired[count] = value;
+				count++;
+
+				pos = skipBlanks(pos);
+				if (pos >= buf.limit() && mapStart + pos < fileSize)
+					throw new NumberFormatException("Line longer than " +
+							MAX_LINE + " bytes at byte " + (mapStart + pos));
+				if (pos < buf.limit() && buf.get(pos) != '\n')
+					throw malformed(pos, mapStart);
+				pos++;
+			}
+			buf = null;
+		}
+
+		/**
+		 * Counts the jobs of the lines that start within the given range
+		 * of the file, the lines parse() would read, without decoding
+		 * them. Leaves the chunk empty.
+		 * @param channel File to be counted
+		 * @param start First byte of the range
+		 * @param end Byte after the range
+		 * @param fileSize Size of the file
+		 * @return Number of jobs in the range
+		 * @throws IOException File could not be mapped
+		 */
+		int countLines(FileChannel channel, long start, long end,
+					   long fileSize) throws IOException {
+			int pos = map(channel, start, end, fileSize);
+			int limit = (int)(Math.min(end, fileSize) - mapStart);
+			int lines = 0;
+			count = 0;
+
+			while (pos < limit) {
+				pos = skipBlanks(pos);
+				if (pos >= buf.limit()) break;
+				if (buf.get(pos) != '\n') {
+					lines++;
+					while (pos < buf.limit() && buf.get(pos) != '\n') pos++;
+				}
+				pos++;
+			}
+			buf = null;
+			return lines;
+		}
+
+		/**
+		 * Maps the given range of the file, with room for the line that
+		 * crosses its end.
+		 * @param channel File to be mapped
+		 * @param start First byte of the range
+		 * @param end Byte after the range
+		 * @param fileSize Size of the file
+		 * @return Position of the first line that starts at or after start;
+		 * a line that started before the range belongs to the chunk before
+		 * @throws IOException File could not be mapped
+		 */
+		private int map(FileChannel channel, long start, long end,
+						long fileSize) throws IOException {
+			mapStart = Math.max(start - 1, 0);
+			long mapEnd = Math.min(end + MAX_LINE, fileSize);
+			buf = channel.map(FileChannel.MapMode.READ_ONLY, mapStart,
+							  mapEnd - mapStart);
+			int pos = 0;
+			if (start > 0) {
+				while (pos < buf.limit() && buf.get(pos) != '\n') pos++;
+				pos++;
+			}
+			return pos;
+		}
+
+		/**
+		 * Decodes the decimal number that starts at the given position.
+		 * @param pos Position of the first digit
+		 * @param mapStart File offset of the mapping, for error messages
+		 * @return Position after the number
+		 */
+		private int parseInt(int pos, long mapStart) {
+			boolean negative = pos < buf.limit() && buf.get(pos) == '-';
+			if (negative) pos++;
+			int start = pos;
+			long n = 0;
+			while (pos < buf.limit()) {
+				int digit = buf.get(pos) - '0';
+				if (digit < 0 || digit > 9) break;
+				n = n * 10 + digit;
+				if (n > Integer.MAX_VALUE) throw malformed(start, mapStart);
+				pos++;
+			}
+			if (pos == start) throw malformed(start, mapStart);
+			value = (int)(negative ? -n : n);
+			return pos;
+		}
+
+		/**
+		 * Skips spaces, tabs and carriage returns.
+		 * @param pos Position to start at
+		 * @return Position of the next other byte
+		 */
+		private int skipBlanks(int pos) {
+			while (pos < buf.limit()) {
+				byte b = buf.get(pos);
+				if (b != ' ' && b != '\t' && b != '\r') break;
+				pos++;
+			}
+			return pos;
+		}
+
+		/**
+		 * Creates the error for a line that is not three numbers.
+		 * @param pos Position of the bad input
+		 * @param mapStart File offset of the mapping
+		 * @return Exception to be thrown
+		 */
+		private NumberFormatException malformed(int pos, long mapStart) {
+			return new NumberFormatException(
+					"Malformed job at byte " + (mapStart + pos));
+		}
+
+		/**
+		 * Doubles the room for jobs in the chunk.
+		 */
+		private void grow() {
+			int size = pid.length * 2;
+			arrivalTime = Arrays.copyOf(arrivalTime, size);
+			pid = Arrays.copyOf(pid, size);
+			timeRequired = Arrays.copyOf(timeRequired, size);
+			lineStart = Arrays.copyOf(lineStart, size);
+		}
+	}
+}
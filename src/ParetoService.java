@@ -0,0 +1,34 @@
+import java.util.SplittableRandom;
+
+/**
+ * Heavy-tailed CPU times from a Pareto distribution. A few very long jobs
+ * make up much of the total work, which is hard on the lower queues.
+ */
+public class ParetoService extends ServiceModel {
+
+// ---------- Field members
+
+	private double minimum;
+	private double inverseShape;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates Pareto CPU times. The smaller the shape the heavier the tail;
+	 * at a shape of 1 or less the average is unbounded and only the cap of
+	 * MAX_SERVICE_TIME keeps it finite.
+	 * @param minimum Shortest CPU time in ticks
+	 * @param shape Shape of the tail, above 0
+	 */
+	public ParetoService(double minimum, double shape) {
+		if (!(minimum > 0) || !(shape > 0))
+			throw new IllegalArgumentException("Minimum and shape must be positive");
+		this.minimum = minimum;
+		inverseShape = 1.0 / shape;
+	}
+
+	public int nextServiceTime(SplittableRandom random) {
+		return toTicks(minimum / Math.pow(1.0 - random.nextDouble(), inverseShape));
+	}
+}
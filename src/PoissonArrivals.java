@@ -0,0 +1,29 @@
+import java.util.SplittableRandom;
+
+/**
+ * Jobs arrive independently of each other at a constant average rate, so
+ * the time between arrivals is exponentially distributed.
+ */
+public class PoissonArrivals extends ArrivalModel {
+
+// ---------- Field members
+
+	private double meanGap;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a Poisson process with the given rate.
+	 * @param rate Average number of arrivals per tick
+	 */
+	public PoissonArrivals(double rate) {
+		if (!(rate > 0))
+			throw new IllegalArgumentException("Rate must be positive");
+		meanGap = 1.0 / rate;
+	}
+
+	public double nextArrival(double now, SplittableRandom random) {
+		return now + exponential(random, meanGap);
+	}
+}
@@ -0,0 +1,116 @@
+import java.util.Arrays;
+
+/**
+ * Hands out the jobs of another source and keeps a copy of every job it
+ * has handed out, so the same input can be read again from the start
+ * with replay(), while the source itself is still being read. Nothing
+ * is ever let go, so the recording takes 12 bytes for every job read.
+ *
+ * The jobs are kept in fixed blocks that are never moved once written.
+ * The number of jobs recorded is published through a volatile field
+ * after each job is written, so replays on other threads read the
+ * recording without locking.
+ */
+public class RecordingJobSource implements JobSource {
+
+// ---------- Field members
+
+	private static final int BLOCK_SHIFT = 12;
+	private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT; // Jobs per block
+	private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+	private JobSource source;
+	// Arrival time, process ID and CPU time required of each job
+	private volatile int[][] blocks;
+	private volatile int recorded;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a recording of the given source.
+	 * @param source Jobs to be handed out and recorded
+	 */
+	public RecordingJobSource(JobSource source) {
+		this.source = source;
+		blocks = new int[16][];
+		recorded = 0;
+	}
+
+	public boolean hasNextJob() {
+		return source.hasNextJob();
+	}
+
+	/**
+	 * Reads the next job of the source into the table and records it.
+	 * @param table Table that the job is added to
+	 * @return Handle of the job that was read
+	 */
+	public int nextJob(JobTable table) {
+		int job = source.nextJob(table);
+		int n = recorded;
+		int[][] blocks = this.blocks;
+		int block = n >>> BLOCK_SHIFT;
+		if (block == blocks.length)
+			blocks = Arrays.copyOf(blocks, 2 * blocks.length);
+		if (blocks[block] == null) blocks[block] = new int[3 * BLOCK_SIZE];
+		int offset = 3 * (n & BLOCK_MASK);
+		blocks[block][offset] = table.getArrivalTime(job);
+		blocks[block][offset + 1] = table.getPID(job);
+		blocks[block][offset + 2] = table.getTimeRequired(job);
+		this.blocks = blocks;
+		recorded = n + 1; // Publishes the job to replays
+		return job;
+	}
+
+	/**
+	 * Returns the number of jobs recorded so far. Safe to call from any
+	 * thread.
+	 * @return Jobs recorded
+	 */
+	public int getRecorded() {
+		return recorded;
+	}
+
+	/**
+	 * Returns a new source that hands out the recorded jobs from the
+	 * first one on. It ends at the last job recorded by the time it is
+	 * asked for more, and skips jobs without reading them, so an engine
+	 * resumes from it at once. Safe to call from any thread.
+	 * @return Source of the recorded jobs
+	 */
+	public SkippableJobSource replay() {
+		return new Replay();
+	}
+
+
+// ---------- Inner classes
+
+	/**
+	 * Reads the recording from the start.
+	 */
+	private class Replay implements SkippableJobSource {
+		private int next = 0;
+
+		public long skipTo(long job) {
+			if (job < next)
+				throw new IllegalArgumentException("Replay is past job " + job);
+			next = (int)Math.min(job, recorded);
+			return next;
+		}
+
+		public boolean hasNextJob() {
+			return next < recorded;
+		}
+
+		public int nextJob(JobTable table) {
+			if (next >= recorded)
+				throw new IllegalStateException("No more recorded jobs");
+			int[] block = blocks[next >>> BLOCK_SHIFT];
+			int offset = 3 * (next & BLOCK_MASK);
+			next++;
+			return table.add(block[offset + 1], block[offset],
+							 block[offset + 2]);
+		}
+	}
+}
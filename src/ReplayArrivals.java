@@ -0,0 +1,69 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Replays the gaps between arrivals of a recorded workload, such as one of
+ * the input files. The gaps are either replayed in their order, starting
+ * over once they run out, or drawn at random so the generated workload has
+ * the same distribution of gaps but not the same sequence.
+ */
+public class ReplayArrivals extends ArrivalModel {
+
+// ---------- Field members
+
+	private int[] gaps;
+	private boolean shuffle;
+	private int next;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a replay of the given gaps.
+	 * @param gaps Ticks between arrivals, at least one and none negative
+	 * @param shuffle Draw the gaps at random instead of in order
+	 */
+	public ReplayArrivals(int[] gaps, boolean shuffle) {
+		if (gaps.length == 0)
+			throw new IllegalArgumentException("No gaps to replay");
+		for (int gap : gaps) {
+			if (gap < 0)
+				throw new IllegalArgumentException("Gaps must not be negative");
+		}
+		this.gaps = gaps.clone();
+		this.shuffle = shuffle;
+		next = 0;
+	}
+
+	/**
+	 * Reads the gaps between the arrivals of every job of a source.
+	 * @param source Recorded jobs in order of arrival
+	 * @return Gaps between arrivals, the first measured from 0
+	 */
+	public static int[] readGaps(JobSource source) {
+		JobTable table = new JobTable();
+		int[] gaps = new int[16];
+		int count = 0;
+		int last = 0;
+		while (source.hasNextJob()) {
+			int job = source.nextJob(table);
+			int arrival = table.getArrivalTime(job);
+			table.release(job);
+			if (count == gaps.length) gaps = Arrays.copyOf(gaps, 2 * count);
+			gaps[count++] = Math.max(arrival - last, 0);
+			last = Math.max(arrival, last);
+		}
+		return Arrays.copyOf(gaps, count);
+	}
+
+	public double nextArrival(double now, SplittableRandom random) {
+		int gap;
+		if (shuffle) {
+			gap = gaps[random.nextInt(gaps.length)];
+		} else {
+			gap = gaps[next];
+			next = next + 1 == gaps.length ? 0 : next + 1;
+		}
+		return now + gap;
+	}
+}
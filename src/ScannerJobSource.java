@@ -0,0 +1,48 @@
+import java.util.Scanner;
+
+/**
+ * Reads jobs from a text input where each line holds the arrival time,
+ * process ID and CPU time required of a job, separated by spaces.
+ */
+public class ScannerJobSource implements JobSource {
+
+// ---------- Field members
+
+	private static final String DELIMITER = "[ ]+";
+	private Scanner fileInput;
+
+
+// ---------- Public methods
+
+	/**
+	 * Constructor requires the Scanner that the jobs are read from.
+	 * @param fileInput File that is read and parsed for data
+	 */
+	public ScannerJobSource(Scanner fileInput) {
+		this.fileInput = fileInput;
+	}
+
+	/**
+	 * Returns whether or not there is another line to read a job from.
+	 * @return Input has another line or not
+	 */
+	public boolean hasNextJob() {
+		return fileInput.hasNextLine();
+	}
+
+	/**
+	 * Parses the next line of the input into a job of the table.
+	 * @param table Table that the job is added to
+	 * @return Handle of the job that was read
+	 */
+	public int nextJob(JobTable table) {
+		String[] tokens = fileInput.nextLine().split(DELIMITER);
+
+		int tempPID, tempArrivalTime, tempTimeReq;
+		tempArrivalTime = Integer.parseInt(tokens[0]);
+		tempPID = Integer.parseInt(tokens[1]);
+		tempTimeReq = Integer.parseInt(tokens[2]);
+
+		return table.add(tempPID, tempArrivalTime, tempTimeReq);
+	}
+}
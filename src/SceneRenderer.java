@@ -0,0 +1,293 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.swing.UIManager;
+
+/**
+ * Draws the scene of the simulation: the background, the queues, the CPU
+ * and the jobs. The GUI draws its animated job elements with it, and
+ * render() draws a whole FrameSnapshot with every job at its place, into
+ * an image and without any window, so frames can be made on a machine
+ * without a display.
+ *
+ * Everything that never moves is drawn once into a static layer, and text
+ * is copied from images kept in TextCaches. A renderer is meant for one
+ * thread at a time; copies made with the copy constructor share the
+ * images but not the caches, so each thread can draw with its own.
+ */
+public class SceneRenderer {
+
+// ---------- Field members
+
+	public static final int WIDTH = 970;
+	public static final int HEIGHT = 600;
+	public static final int VISIBLE_ROWS = 5; // Jobs that fit in a queue
+	public static final int AGGREGATE_ABOVE = 32;
+	public static final int AGGREGATE_BELOW = 16;
+	public static final String[] SPRITES = { "job", "jobspace", "cpu" };
+	private static final int LOG_LINES = 7; // Lines that fit in the log box
+
+	private static final Color SHADE = new Color(0, 0, 0, 170);
+	private static final Color[] HEAT = new Color[16];
+	static {
+		// From green for the youngest jobs to red for the oldest
+		for (int i = 0; i < HEAT.length; i++) {
+			float hue = 0.33f * (HEAT.length - 1 - i) / (HEAT.length - 1);
+			HEAT[i] = Color.getHSBColor(hue, 0.75f, 0.85f);
+		}
+	}
+
+	private BufferedImage imgJob, imgJobSpace, imgCPU, imgBG;
+	private BufferedImage staticLayer;
+	private Font font;
+	private TextCache darkText, lightText, statText;
+	private JobVisuals placer;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a renderer with the sprites of an atlas and no background.
+	 * @param atlas Atlas holding the SPRITES
+	 * @param font Font of the text
+	 */
+	public SceneRenderer(SpriteAtlas atlas, Font font) {
+		imgJob = atlas.get("job");
+		imgJobSpace = atlas.get("jobspace");
+		imgCPU = atlas.get("cpu");
+		this.font = font;
+		createCaches();
+		buildStaticLayer();
+	}
+
+	/**
+	 * Creates a renderer that draws the same scene as another one, with
+	 * caches of its own.
+	 * @param other Renderer to be copied
+	 */
+	public SceneRenderer(SceneRenderer other) {
+		imgJob = other.imgJob;
+		imgJobSpace = other.imgJobSpace;
+		imgCPU = other.imgCPU;
+		imgBG = other.imgBG;
+		staticLayer = other.staticLayer;
+		font = other.font;
+		createCaches();
+	}
+
+	/**
+	 * Loads a renderer with every image, the background included, and
+	 * the default font of the GUI.
+	 * @param dir Folder of the images
+	 * @return Renderer ready to draw
+	 * @throws IOException Images could not be found or read
+	 */
+	public static SceneRenderer load(File dir) throws IOException {
+		Font font = UIManager.getFont("Panel.font");
+		if (font == null) font = new Font(Font.DIALOG, Font.PLAIN, 12);
+		SceneRenderer renderer = new SceneRenderer(
+				SpriteAtlas.load(dir, SPRITES), font.deriveFont(Font.BOLD));
+		renderer.setBackground(
+				SpriteAtlas.readImage(new File(dir, "background.png")));
+		return renderer;
+	}
+
+	/**
+	 * Sets the background image, which is tiled behind the scene.
+	 * @param imgBG Background image
+	 */
+	public void setBackground(BufferedImage imgBG) {
+		this.imgBG = imgBG;
+		buildStaticLayer();
+	}
+
+	public BufferedImage getJobImage() {
+		return imgJob;
+	}
+
+	/**
+	 * Returns the area of the space of a queue level.
+	 * @param level Queue level, 0 for the first queue
+	 * @return Area of the queue
+	 */
+	public Rectangle getQueueArea(int level) {
+		return new Rectangle(175 + 200 * Math.min(level, 3), 220,
+				imgJobSpace.getWidth(), imgJobSpace.getHeight());
+	}
+
+	/**
+	 * Draws everything that never moves.
+	 * @param g Buffer that all the drawing happens on
+	 */
+	public void drawStatic(Graphics g) {
+		g.drawImage(staticLayer, 0, 0, null);
+	}
+
+	/**
+	 * Draws the quantum left of the job on the CPU.
+	 * @param g Buffer that all the drawing happens on
+	 * @param quantum Quantum left
+	 */
+	public void drawQuantum(Graphics g, int quantum) {
+		lightText.drawString(g, "CPU Quantum: " + quantum, 420, 143);
+	}
+
+	/**
+	 * Draws a GUI job element where it is.
+	 * @param g Buffer that all the drawing happens on
+	 * @param visuals GUI job element to be drawn
+	 */
+	public void drawJob(Graphics g, JobVisuals visuals) {
+		visuals.drawImage(g);
+		visuals.drawText(g, darkText);
+	}
+
+	/**
+	 * Draws a queue level that holds too many jobs to be drawn one by one
+	 * as a single strip. Each band of the strip is a sampled job, from the
+	 * front of the queue at the top to the back at the bottom.
+	 * @param g Buffer that all the drawing happens on
+	 * @param frame Frame being shown
+	 * @param level Queue level to be drawn
+	 */
+	public void drawAggregate(Graphics g, FrameSnapshot frame, int level) {
+		Rectangle area = getQueueArea(level);
+		int samples = frame.getAgeSampleCount(level);
+		int oldest = Math.max(1, frame.getAgeAtPercentile(level, 100));
+
+		for (int i = 0; i < samples; i++) {
+			int top = area.y + i * area.height / samples;
+			int bottom = area.y + (i + 1) * area.height / samples;
+			long age = frame.getAgeSample(level, i);
+			g.setColor(HEAT[(int)(age * (HEAT.length - 1) / oldest)]);
+			g.fillRect(area.x, top, area.width, bottom - top);
+		}
+
+		int x = area.x + 10, y = area.y;
+		g.setColor(SHADE);
+		g.fillRect(area.x, y, area.width, 80);
+		lightText.drawString(g, frame.getQueueSize(level) + " jobs", x, y + 15);
+		lightText.drawString(g, "Age p50: " +
+				frame.getAgeAtPercentile(level, 50), x, y + 35);
+		lightText.drawString(g, "Age p90: " +
+				frame.getAgeAtPercentile(level, 90), x, y + 55);
+		lightText.drawString(g, "Age p99: " +
+				frame.getAgeAtPercentile(level, 99), x, y + 70);
+	}
+
+	/**
+	 * Draws a whole frame with every job at its place. Queue levels with
+	 * more than AGGREGATE_ABOVE jobs are drawn as strips. The status of
+	 * the system and the last lines of the event log are drawn where the
+	 * GUI shows them.
+	 * @param g Buffer that all the drawing happens on
+	 * @param frame Frame to be drawn
+	 */
+	public void drawFrame(Graphics g, FrameSnapshot frame) {
+		drawStatic(g);
+		g.setColor(Color.black);
+		g.fillRect(180, 20, 170, 140);
+		statText.drawString(g, "System Time: " + frame.getClock(), 184, 36);
+		statText.drawString(g, "System status:", 184, 84);
+		statText.drawString(g, frame.getStatus(), 184, 102);
+		g.fillRect(580, 21, 350, 140);
+		long first = Math.max(0, frame.getLogCount() - LOG_LINES);
+		for (long n = first; n < frame.getLogCount(); n++) {
+			statText.drawString(g, frame.getLogLine(n).replace("\t", "  "),
+					584, 36 + 18 * (int)(n - first));
+		}
+		drawQuantum(g, frame.getQuantumLeft());
+
+		if (placer == null) {
+			placer = new JobVisuals(0, 0, 1);
+			placer.setImage(imgJob);
+		}
+		for (int level = 0; level < frame.getNumLevels(); level++) {
+			if (frame.getQueueSize(level) > AGGREGATE_ABOVE) {
+				drawAggregate(g, frame, level);
+				continue;
+			}
+			int shown = Math.min(frame.getHeldCount(level), VISIBLE_ROWS);
+			for (int i = 0; i < shown; i++) {
+				placer.reset(frame.getJobPID(level, i),
+						frame.getJobTimeLeft(level, i), 1, level + 1);
+				placer.moveToQueue(level + 1, i);
+				placer.settle();
+				drawJob(g, placer);
+			}
+		}
+		if (frame.getCPUJobID() != FrameSnapshot.NONE) {
+			placer.reset(frame.getCPUJobPID(), frame.getCPUJobTimeLeft(), 1, 1);
+			placer.moveToCPU();
+			placer.settle();
+			drawJob(g, placer);
+		}
+	}
+
+	/**
+	 * Draws a whole frame into a new image of the size of the GUI.
+	 * @param frame Frame to be drawn
+	 * @return Image of the frame
+	 */
+	public BufferedImage render(FrameSnapshot frame) {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT,
+												BufferedImage.TYPE_INT_RGB);
+		Graphics g = image.getGraphics();
+		drawFrame(g, frame);
+		g.dispose();
+		return image;
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Sets up the caches of the text drawn on top of the static layer.
+	 */
+	private void createCaches() {
+		darkText = new TextCache(font, Color.black);
+		lightText = new TextCache(font, Color.white);
+		statText = new TextCache(font, Color.green);
+	}
+
+	/**
+	 * Draws everything that never moves into the static layer: the
+	 * background, the spaces of the queues, the CPU and their labels.
+	 */
+	private void buildStaticLayer() {
+		BufferedImage layer = new BufferedImage(WIDTH, HEIGHT,
+												BufferedImage.TYPE_INT_RGB);
+		Graphics g = layer.getGraphics();
+		Color fill = UIManager.getColor("Panel.background");
+		g.setColor(fill != null ? fill : Color.lightGray);
+		g.fillRect(0, 0, WIDTH, HEIGHT);
+		if (imgBG != null) {
+			g.drawImage(imgBG, 0, 0, null);
+			g.drawImage(imgBG, 800, 0, null);
+			g.drawImage(imgBG, 0, 600, null);
+			g.drawImage(imgBG, 800, 600, null);
+		}
+
+		g.drawImage(imgJobSpace, 175, 220, null);
+		g.drawImage(imgJobSpace, 375, 220, null);
+		g.drawImage(imgJobSpace, 575, 220, null);
+		g.drawImage(imgJobSpace, 775, 220, null);
+		g.drawImage(imgCPU, 390, 20, null);
+
+		g.setColor(Color.white);
+		g.setFont(font);
+		g.drawString("Queue 1", 175, 210);
+		g.drawString("Queue 2", 375, 210);
+		g.drawString("Queue 3", 575, 210);
+		g.drawString("Queue 4", 775, 210);
+		g.drawRect(579,20,351,141);
+		g.drawRect(179,19,171,141);
+		g.dispose();
+		staticLayer = layer;
+	}
+}
@@ -0,0 +1,37 @@
+import java.util.SplittableRandom;
+
+/**
+ * Decides how much CPU time the jobs of a generated workload need.
+ */
+public abstract class ServiceModel {
+
+// ---------- Field members
+
+	// Longest CPU time handed out, so sums of them stay within an int clock
+	public static final int MAX_SERVICE_TIME = 1 << 24;
+
+
+// ---------- Public methods
+
+	/**
+	 * Returns the CPU time needed by the next job.
+	 * @param random Random numbers of the generator
+	 * @return Ticks from 1 to MAX_SERVICE_TIME
+	 */
+	public abstract int nextServiceTime(SplittableRandom random);
+
+
+// ---------- Protected methods
+
+	/**
+	 * Rounds a CPU time up to whole ticks, at least 1 and at most
+	 * MAX_SERVICE_TIME.
+	 * @param time CPU time as a real number
+	 * @return CPU time in ticks
+	 */
+	protected static int toTicks(double time) {
+		if (!(time > 1.0)) return 1;
+		if (time >= MAX_SERVICE_TIME) return MAX_SERVICE_TIME;
+		return (int)Math.ceil(time);
+	}
+}
@@ -0,0 +1,16 @@
+
+/**
+ * Empty implementation of SimulationListener so that listeners only have
+ * to override the events they care about.
+ */
+public abstract class SimulationAdapter implements SimulationListener {
+
+	public void onStart(JobTable jobs) {}
+	public void onTick(int clock) {}
+	public void onArrival(int clock, int job) {}
+	public void onCpuTick(int clock, int job) {}
+	public void onDispatch(int clock, int job, int queueLevel) {}
+	public void onPreempt(int clock, int job) {}
+	public void onDeparture(int clock, int job) {}
+	public void onFinish(SimulationStats stats) {}
+}
@@ -0,0 +1,460 @@
+import java.util.Arrays;
+
+/**
+ * Runs the multi-level feedback queue scheduling without any user
+ * interface. Jobs are taken from a JobSource and everything that happens
+ * is reported to the attached SimulationListeners.
+ *
+ * Jobs are kept in a JobTable and the queues and CPU only pass around the
+ * int handles of the jobs, so no objects are created per job. Jobs are
+ * read from the source only a few at a time ahead of their arrival, so
+ * memory does not grow with the length of the input.
+ */
+public class SimulationEngine {
+
+// ---------- Field members
+
+	private JobSource source;
+	private SimulationListener[] listeners;
+	private JobTable jobs;
+	private IntRingQueue jobQueue;
+	private int lookahead;
+	private int[] arrivals;
+	private IntRingQueue[] queueLevel;
+	private LevelBitmap nonEmptyLevels;
+	private CPU intel;
+	private SimulationStats stats;
+	private boolean stepEveryTick;
+
+	private int clock;
+	private long jobsRead;
+
+	// Queues go from 0 to 3 for a total of 4 queues unless set otherwise
+	public static final int DEFAULT_QUEUE_LEVELS = 4;
+	public static final int DEFAULT_LOOKAHEAD = 64;
+
+
+// ---------- Public methods
+
+	/**
+	 * Constructor requires where the jobs come from and where the results
+	 * go to. Uses the default number of queue levels.
+	 * @param source Jobs to be simulated
+	 * @param sink Listener that receives the results
+	 */
+	public SimulationEngine(JobSource source, SimulationListener sink) {
+		this(source, sink, DEFAULT_QUEUE_LEVELS);
+	}
+
+	/**
+	 * Constructor requires where the jobs come from, where the results go
+	 * to and how many queue levels the scheduler has.
+	 * @param source Jobs to be simulated
+	 * @param sink Listener that receives the results
+	 * @param numLevels Number of queue levels, at most LevelBitmap.MAX_LEVELS
+	 */
+	public SimulationEngine(JobSource source, SimulationListener sink,
+							int numLevels) {
+		this.source = source;
+		listeners = new SimulationListener[] { sink };
+		jobs = new JobTable();
+		lookahead = DEFAULT_LOOKAHEAD;
+		jobQueue = new IntRingQueue();
+		arrivals = new int[DEFAULT_LOOKAHEAD];
+		nonEmptyLevels = new LevelBitmap(numLevels);
+		intel = new CPU(jobs, numLevels);
+		stats = new SimulationStats();
+		stepEveryTick = false;
+
+		queueLevel = new IntRingQueue[numLevels];
+		for (int i = 0; i < numLevels; i++)
+			queueLevel[i] = new IntRingQueue();
+
+		clock = 0;
+		jobsRead = 0;
+	}
+
+	/**
+	 * Constructor that resumes a simulation from a snapshot. The source
+	 * must be the same input the snapshot was taken from, read from the
+	 * start; the jobs that were already read are skipped. A
+	 * SkippableJobSource may also be opened at any job up to the ones
+	 * read. Listeners only see what happens after the snapshot.
+	 * @param source Jobs to be simulated, from the first job on
+	 * @param sink Listener that receives the results
+	 * @param snapshot State the simulation goes on from
+	 */
+	public SimulationEngine(JobSource source, SimulationListener sink,
+							EngineSnapshot snapshot) {
+		this(source, sink, snapshot.getNumLevels());
+		jobs = new JobTable(snapshot.jobs);
+		intel = new CPU(jobs, queueLevel.length);
+		intel.resume(snapshot.cpuJob, snapshot.quantumClock);
+		stats = new SimulationStats(snapshot.stats);
+		jobQueue.insertAll(snapshot.prefetched, 0, snapshot.prefetched.length);
+		for (int i = 0; i < queueLevel.length; i++) {
+			int[] queued = snapshot.queued[i];
+			queueLevel[i].insertAll(queued, 0, queued.length);
+			if (queued.length > 0) nonEmptyLevels.set(i);
+		}
+		clock = snapshot.clock;
+
+		// Skip the jobs the snapshot already holds or has seen leave
+		if (source instanceof SkippableJobSource) {
+			jobsRead = ((SkippableJobSource)source).skipTo(snapshot.jobsRead);
+			if (jobsRead < snapshot.jobsRead)
+				throw new IllegalArgumentException(
+						"Source has fewer jobs than the snapshot has read");
+		} else {
+			JobTable skipped = new JobTable();
+			for (jobsRead = 0; jobsRead < snapshot.jobsRead; jobsRead++) {
+				if (!source.hasNextJob())
+					throw new IllegalArgumentException(
+							"Source has fewer jobs than the snapshot has read");
+				skipped.release(source.nextJob(skipped));
+			}
+		}
+	}
+
+	/**
+	 * Attaches another listener to the simulation.
+	 * @param listener Listener that receives the simulation events
+	 */
+	public void addListener(SimulationListener listener) {
+		listeners = Arrays.copyOf(listeners, listeners.length + 1);
+		listeners[listeners.length - 1] = listener;
+	}
+
+	/**
+	 * Sets whether every tick is processed one at a time or ticks in which
+	 * nothing happens are skipped. Skipping is on by default and gives the
+	 * same results, only listeners get fewer onTick calls.
+	 * @param stepEveryTick Process every tick or not
+	 */
+	public void setStepEveryTick(boolean stepEveryTick) {
+		this.stepEveryTick = stepEveryTick;
+	}
+
+	/**
+	 * Sets how many jobs are read from the source ahead of their arrival.
+	 * Must be set before the simulation is started.
+	 * @param lookahead Number of jobs read ahead, at least 1
+	 */
+	public void setLookahead(int lookahead) {
+		if (lookahead < 1)
+			throw new IllegalArgumentException("Lookahead must be at least 1");
+		this.lookahead = lookahead;
+		int[] prefetched = jobQueue.toArray();
+		jobQueue = new IntRingQueue(lookahead, IntRingQueue.DEFAULT_SHRINK_DIVISOR);
+		jobQueue.insertAll(prefetched, 0, prefetched.length);
+	}
+
+	/**
+	 * Sets the quantum that jobs from the given queue level get. By
+	 * default it is 2 ticks at the first level and doubles at each level
+	 * below. Like the other settings it is not kept in a snapshot.
+	 * @param level Queue level
+	 * @param ticks Quantum in ticks, at least 1
+	 */
+	public void setQuantum(int level, int ticks) {
+		intel.setQuantum(level, ticks);
+	}
+
+	/**
+	 * Returns the quantum that jobs from the given queue level get.
+	 * @param level Queue level
+	 * @return Quantum in ticks
+	 */
+	public int getQuantum(int level) {
+		return intel.getQuantum(level);
+	}
+
+	/**
+	 * Runs the whole simulation from start to finish.
+	 * @return Final statistics of the simulation
+	 */
+	public SimulationStats run() {
+		start();
+		while (hasWork()) {
+			step();
+		}
+		return finish();
+	}
+
+	/**
+	 * Reads the first jobs from the source and reports the start of the
+	 * simulation.
+	 */
+	public void start() {
+		prefetchJobs();
+		for (SimulationListener l : listeners) l.onStart(jobs);
+	}
+
+	/**
+	 * Returns whether or not there are jobs left to be processed.
+	 * @return Simulation has work left or not
+	 */
+	public boolean hasWork() {
+		return !jobQueue.isEmpty() || intel.isBusy() ||
+			   !nonEmptyLevels.isEmpty();
+	}
+
+	/**
+	 * Advances the simulation to its next event and processes it.
+	 */
+	public void step() {
+		if (!stepEveryTick) skipToNextEvent(Integer.MAX_VALUE);
+		tick();
+	}
+
+	/**
+	 * Advances the simulation up to the given time, or until it runs out
+	 * of work, skipping the ticks in which nothing happens whether or not
+	 * every tick is to be processed. Never goes past the given time.
+	 * @param target System time to stop at
+	 */
+	public void advanceTo(int target) {
+		while (clock < target && hasWork()) {
+			skipToNextEvent(target);
+			tick();
+		}
+	}
+
+	/**
+	 * Totals out the records and reports the end of the simulation.
+	 * @return Final statistics of the simulation
+	 */
+	public SimulationStats finish() {
+		stats.totalRecords();
+		for (SimulationListener l : listeners) l.onFinish(stats);
+		return stats;
+	}
+
+	/**
+	 * Copies the full state of the simulation. Only the copying is done
+	 * here, so the snapshot can be written out on another thread while the
+	 * simulation goes on. Must be called between steps, not from a
+	 * listener.
+	 * @return Snapshot of the simulation
+	 */
+	public EngineSnapshot snapshot() {
+		int[][] queued = new int[queueLevel.length][];
+		for (int i = 0; i < queueLevel.length; i++)
+			queued[i] = queueLevel[i].toArray();
+		return new EngineSnapshot(clock, jobsRead, new JobTable(jobs),
+				jobQueue.toArray(), queued, intel.peekCPU(),
+				intel.getQuantumClock(), new SimulationStats(stats));
+	}
+
+	/**
+	 * Returns the current system time of the simulation.
+	 * @return System clock
+	 */
+	public int getClock() {
+		return clock;
+	}
+
+	/**
+	 * Returns the number of jobs that were read from the source but have
+	 * not arrived yet.
+	 * @return Jobs waiting to arrive
+	 */
+	public int getBacklog() {
+		return jobQueue.size();
+	}
+
+	/**
+	 * Returns the number of jobs waiting in a queue level.
+	 * @param level Queue level
+	 * @return Number of jobs in the queue
+	 */
+	public int getQueueSize(int level) {
+		return queueLevel[level].size();
+	}
+
+	/**
+	 * Returns a job waiting in a queue level without removing it.
+	 * @param level Queue level
+	 * @param index Position in the queue, 0 at the front
+	 * @return Handle of the job
+	 */
+	public int getQueuedJob(int level, int index) {
+		return queueLevel[level].get(index);
+	}
+
+	/**
+	 * Returns the job that is on the CPU.
+	 * @return Handle of the job or JobTable.NONE if the CPU is idle
+	 */
+	public int getCPUJob() {
+		return intel.peekCPU();
+	}
+
+	/**
+	 * Returns the ticks left of the quantum of the job on the CPU.
+	 * @return Quantum left or 0 if the CPU is idle
+	 */
+	public int getQuantumLeft() {
+		return intel.isBusy() ? intel.getQuantumClock() : 0;
+	}
+
+	/**
+	 * Returns the number of queue levels of the scheduler.
+	 * @return Number of queue levels
+	 */
+	public int getNumLevels() {
+		return queueLevel.length;
+	}
+
+	/**
+	 * Returns the table that holds the jobs of the simulation.
+	 * @return Job table
+	 */
+	public JobTable getJobs() {
+		return jobs;
+	}
+
+	/**
+	 * Returns the record keeping of the simulation.
+	 * @return Statistics so far
+	 */
+	public SimulationStats getStats() {
+		return stats;
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Handles the main algorithm of the program as a single tick.
+	 */
+	private void tick() {
+		clock++;
+		for (SimulationListener l : listeners) l.onTick(clock);
+		admitArrivals();
+		if (intel.isBusy()) {
+			intel.decClocks();
+			for (SimulationListener l : listeners)
+				l.onCpuTick(clock, intel.peekCPU());
+			if (intel.jobFinished()) {
+				int temp = intel.clearCPU(clock);
+				stats.recordDeparture(
+						jobs.getTimeInSystem(temp) - jobs.getArrivalTime(temp),
+						jobs.getWaitingTime(temp));
+				for (SimulationListener l : listeners)
+					l.onDeparture(clock, temp);
+				jobs.release(temp);
+				submitQueuedJob();
+			}
+			if (intel.quantumClockDone() || nonEmptyLevels.isSet(0)) {
+				int temp = intel.preemptCPU();
+				jobs.clockInQueue(temp, clock);
+				enqueue(temp);
+				for (SimulationListener l : listeners)
+					l.onPreempt(clock, temp);
+				submitQueuedJob();
+			}
+		} else {
+			stats.addIdleTime(1);
+			submitQueuedJob();
+		}
+		if (nonEmptyLevels.isSet(0)) stats.incResponseTime();
+	}
+
+	/**
+	 * Moves every job that has arrived by the current clock into the first
+	 * queue as one batch, so a burst of simultaneous arrivals costs at most
+	 * one resize of the queue.
+	 */
+	private void admitArrivals() {
+		int admitted = 0;
+		while (!jobQueue.isEmpty() &&
+			   jobs.getArrivalTime(jobQueue.query()) <= clock) {
+			if (admitted == arrivals.length)
+				arrivals = Arrays.copyOf(arrivals, 2 * admitted);
+			arrivals[admitted++] = jobQueue.remove();
+			if (jobQueue.isEmpty()) prefetchJobs();
+		}
+		if (admitted == 0) return;
+		prefetchJobs();
+
+		// New jobs always start in the first queue
+		queueLevel[0].insertAll(arrivals, 0, admitted);
+		nonEmptyLevels.set(0);
+		for (int i = 0; i < admitted; i++) {
+			for (SimulationListener l : listeners)
+				l.onArrival(clock, arrivals[i]);
+		}
+	}
+
+	/**
+	 * Reads jobs from the source until the lookahead is full or the source
+	 * runs out. The arrival queue is therefore only empty once every job
+	 * has been read.
+	 */
+	private void prefetchJobs() {
+		while (jobQueue.size() < lookahead && source.hasNextJob()) {
+			jobQueue.insert(source.nextJob(jobs));
+			jobsRead++;
+		}
+	}
+
+	/**
+	 * Jumps the clock forward over every tick in which nothing but time
+	 * passes, so that the next call to tick() lands on the next arrival,
+	 * job completion or quantum expiry. The skipped ticks are accounted
+	 * for exactly as tick() would have done one by one.
+	 * @param limit Time the next call to tick() must not pass
+	 */
+	private void skipToNextEvent(int limit) {
+		// Jobs left in the first queue preempt the CPU on the next tick
+		if (nonEmptyLevels.isSet(0)) return;
+		// Queues are always drained into an idle CPU at the end of a tick,
+		// so an idle CPU here means every queue is empty.
+		long nextEvent = Long.MAX_VALUE;
+		if (!jobQueue.isEmpty())
+			nextEvent = jobs.getArrivalTime(jobQueue.query());
+		if (intel.isBusy())
+			nextEvent = Math.min(nextEvent,
+					(long)clock + intel.ticksUntilRelease());
+		if (nextEvent == Long.MAX_VALUE) return;
+
+		int quietTicks = (int)Math.min(Math.min(nextEvent, limit) - clock - 1,
+				Integer.MAX_VALUE);
+		if (quietTicks <= 0) return;
+
+		clock += quietTicks;
+		if (intel.isBusy())
+			intel.decClocks(quietTicks);
+		else
+			stats.addIdleTime(quietTicks);
+	}
+
+	/**
+	 * Handles submitting a queued job to the CPU.
+	 */
+	private void submitQueuedJob() {
+		int level = nonEmptyLevels.first();
+		if (level < 0) return;
+		// Only the first queue may take the CPU from a busy job
+		if (level > 0 && intel.isBusy()) return;
+
+		int temp = queueLevel[level].remove();
+		if (queueLevel[level].isEmpty()) nonEmptyLevels.clear(level);
+		jobs.clockOutQueue(temp, clock);
+		jobs.markDispatched(temp, clock);
+		intel.submitJob(temp);
+		for (SimulationListener l : listeners)
+			l.onDispatch(clock, temp, level);
+	}
+
+	/**
+	 * Places a job at the back of the queue of its current level.
+	 * @param job Handle of the job to be queued
+	 */
+	private void enqueue(int job) {
+		int level = jobs.getCurrentQueue(job);
+		queueLevel[level].insert(job);
+		nonEmptyLevels.set(level);
+	}
+}
@@ -0,0 +1,65 @@
+
+/**
+ * Receives the events of a running simulation engine. All methods are
+ * called on the thread that runs the engine. Jobs are given as handles of
+ * the job table passed to onStart(), and a handle is released for reuse
+ * once onDeparture() has returned.
+ */
+public interface SimulationListener {
+
+	/**
+	 * Called once before the first tick of the simulation.
+	 * @param jobs Table that holds the jobs of the simulation
+	 */
+	public void onStart(JobTable jobs);
+
+	/**
+	 * Called at the start of every tick that the engine processes. Ticks
+	 * in which nothing happens are skipped unless the engine is set to
+	 * step every tick.
+	 * @param clock System time of the tick
+	 */
+	public void onTick(int clock);
+
+	/**
+	 * Called when a job arrives into the system.
+	 * @param clock System time of the arrival
+	 * @param job Handle of the job that arrived
+	 */
+	public void onArrival(int clock, int job);
+
+	/**
+	 * Called when the CPU has processed its job for a tick.
+	 * @param clock System time of the tick
+	 * @param job Handle of the job that resides in the CPU
+	 */
+	public void onCpuTick(int clock, int job);
+
+	/**
+	 * Called when a job is taken from a queue and submitted to the CPU.
+	 * @param clock System time of the dispatch
+	 * @param job Handle of the job that was submitted
+	 * @param queueLevel Queue that the job was taken from
+	 */
+	public void onDispatch(int clock, int job, int queueLevel);
+
+	/**
+	 * Called when a job is forced out of the CPU and back into a queue.
+	 * @param clock System time of the preemption
+	 * @param job Handle of the job that was preempted
+	 */
+	public void onPreempt(int clock, int job);
+
+	/**
+	 * Called when a job finishes and leaves the system.
+	 * @param clock System time of the departure
+	 * @param job Handle of the job that left the system
+	 */
+	public void onDeparture(int clock, int job);
+
+	/**
+	 * Called once after the last job has left the system.
+	 * @param stats Final statistics of the simulation
+	 */
+	public void onFinish(SimulationStats stats);
+}
@@ -0,0 +1,214 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Shows the progress of a running simulation as an MBean, so it can be
+ * watched from JConsole or a metrics collector while the simulation runs.
+ *
+ * Events are counted in LongAdders, whose updates never wait on a reader.
+ * The clock, backlog and idle time are read straight from the engine
+ * without locking, so they may be a moment behind. The per-second rates
+ * are measured over samples of at least one second, taken when a rate is
+ * read.
+ *
+ * A monitor of an engine resumed from a snapshot starts its queue depths
+ * from the queues of the snapshot, and the clock, backlog, idle time and
+ * busy ratio cover the whole run. The event counts only cover the events
+ * since the monitor was created.
+ */
+public class SimulationMonitor extends SimulationAdapter
+		implements SimulationMonitorMBean {
+
+// ---------- Field members
+
+	public static final String DEFAULT_NAME = "mfq:type=SimulationMonitor";
+	private static final long SAMPLE_NANOS = 1000000000L;
+
+	private SimulationEngine engine;
+	private JobTable jobs;
+	private LongAdder arrivals, dispatches, preemptions, departures;
+	private LongAdder[] queueDepth;
+	private volatile boolean finished;
+	private ObjectName registeredName;
+
+	// Counts at the start of the current sample and the rates of the last
+	private long sampleStart, sampleTicks, sampleDispatches, samplePreemptions;
+	private double dispatchRate, preemptionRate, tickRate;
+	private boolean sampled;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a monitor of the given engine. It must also be added to the
+	 * engine as a listener before the engine is started.
+	 * @param engine Simulation to be monitored
+	 */
+	public SimulationMonitor(SimulationEngine engine) {
+		this.engine = engine;
+		arrivals = new LongAdder();
+		dispatches = new LongAdder();
+		preemptions = new LongAdder();
+		departures = new LongAdder();
+		queueDepth = new LongAdder[engine.getNumLevels()];
+		for (int i = 0; i < queueDepth.length; i++) {
+			queueDepth[i] = new LongAdder();
+			queueDepth[i].add(engine.getQueueSize(i));
+		}
+		finished = false;
+		sampleStart = System.nanoTime();
+		sampleTicks = engine.getClock();
+		sampled = false;
+	}
+
+	/**
+	 * Registers the monitor with the platform MBean server under the
+	 * default name.
+	 * @throws JMException Monitor could not be registered
+	 */
+	public void register() throws JMException {
+		register(new ObjectName(DEFAULT_NAME));
+	}
+
+	/**
+	 * Registers the monitor with the platform MBean server.
+	 * @param name Name the monitor is registered under
+	 * @throws JMException Monitor could not be registered
+	 */
+	public void register(ObjectName name) throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		server.registerMBean(this, name);
+		registeredName = name;
+	}
+
+	/**
+	 * Removes the monitor from the platform MBean server if it was
+	 * registered.
+	 * @throws JMException Monitor could not be removed
+	 */
+	public void unregister() throws JMException {
+		if (registeredName == null) return;
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+		registeredName = null;
+	}
+
+	public void onStart(JobTable jobs) {
+		this.jobs = jobs;
+	}
+
+	public void onArrival(int clock, int job) {
+		arrivals.increment();
+		queueDepth[0].increment();
+	}
+
+	public void onDispatch(int clock, int job, int queueLevel) {
+		dispatches.increment();
+		queueDepth[queueLevel].decrement();
+	}
+
+	public void onPreempt(int clock, int job) {
+		preemptions.increment();
+		queueDepth[jobs.getCurrentQueue(job)].increment();
+	}
+
+	public void onDeparture(int clock, int job) {
+		departures.increment();
+	}
+
+	public void onFinish(SimulationStats stats) {
+		finished = true;
+	}
+
+	public int getClock() {
+		return engine.getClock();
+	}
+
+	public long[] getQueueDepths() {
+		long[] depths = new long[queueDepth.length];
+		for (int i = 0; i < depths.length; i++)
+			depths[i] = queueDepth[i].sum();
+		return depths;
+	}
+
+	public int getBacklog() {
+		return engine.getBacklog();
+	}
+
+	public double getCPUBusyRatio() {
+		int clock = engine.getClock();
+		if (clock <= 0) return 0.0;
+		return (double)(clock - getCPUIdleTime()) / clock;
+	}
+
+	public long getCPUIdleTime() {
+		return engine.getStats().getCPUIdleTime();
+	}
+
+	public long getArrivals() {
+		return arrivals.sum();
+	}
+
+	public long getDispatches() {
+		return dispatches.sum();
+	}
+
+	public long getPreemptions() {
+		return preemptions.sum();
+	}
+
+	public long getDepartures() {
+		return departures.sum();
+	}
+
+	public synchronized double getDispatchesPerSecond() {
+		sample();
+		return dispatchRate;
+	}
+
+	public synchronized double getPreemptionsPerSecond() {
+		sample();
+		return preemptionRate;
+	}
+
+	public synchronized double getTicksPerSecond() {
+		sample();
+		return tickRate;
+	}
+
+	public boolean isFinished() {
+		return finished;
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Works out the rates of the current sample once it is at least a
+	 * second long and starts the next one. Until the first sample is over
+	 * the rates are measured from the start.
+	 */
+	private void sample() {
+		long now = System.nanoTime();
+		long elapsed = now - sampleStart;
+		if (elapsed <= 0) return;
+		if (elapsed < SAMPLE_NANOS && sampled) return;
+
+		long ticks = engine.getClock();
+		long dispatched = dispatches.sum();
+		long preempted = preemptions.sum();
+		double seconds = elapsed / 1e9;
+		tickRate = (ticks - sampleTicks) / seconds;
+		dispatchRate = (dispatched - sampleDispatches) / seconds;
+		preemptionRate = (preempted - samplePreemptions) / seconds;
+		if (elapsed >= SAMPLE_NANOS) {
+			sampled = true;
+			sampleStart = now;
+			sampleTicks = ticks;
+			sampleDispatches = dispatched;
+			samplePreemptions = preempted;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * Management interface of a running simulation, as shown by JConsole or
+ * any other JMX client. See SimulationMonitor.
+ */
+public interface SimulationMonitorMBean {
+
+	/**
+	 * Returns the current system time of the simulation.
+	 * @return System clock
+	 */
+	int getClock();
+
+	/**
+	 * Returns the number of jobs waiting in each queue level.
+	 * @return Depth of every queue, first queue first
+	 */
+	long[] getQueueDepths();
+
+	/**
+	 * Returns the number of jobs that were read ahead but have not arrived.
+	 * @return Jobs waiting to arrive
+	 */
+	int getBacklog();
+
+	/**
+	 * Returns the share of the simulated time the CPU had a job.
+	 * @return Ratio from 0 to 1
+	 */
+	double getCPUBusyRatio();
+
+	/**
+	 * Returns the total CPU idle time so far.
+	 * @return Idle ticks
+	 */
+	long getCPUIdleTime();
+
+	/**
+	 * Returns the number of jobs that arrived so far.
+	 * @return Total arrivals
+	 */
+	long getArrivals();
+
+	/**
+	 * Returns the number of times a job was given the CPU so far.
+	 * @return Total dispatches
+	 */
+	long getDispatches();
+
+	/**
+	 * Returns the number of times a job was taken off the CPU before it
+	 * finished.
+	 * @return Total preemptions
+	 */
+	long getPreemptions();
+
+	/**
+	 * Returns the number of jobs that left the system so far.
+	 * @return Total departures
+	 */
+	long getDepartures();
+
+	/**
+	 * Returns the dispatches per wall-clock second over the last sample.
+	 * @return Dispatch rate
+	 */
+	double getDispatchesPerSecond();
+
+	/**
+	 * Returns the preemptions per wall-clock second over the last sample.
+	 * @return Preemption rate
+	 */
+	double getPreemptionsPerSecond();
+
+	/**
+	 * Returns the simulated ticks per wall-clock second over the last
+	 * sample.
+	 * @return Simulation speed
+	 */
+	double getTicksPerSecond();
+
+	/**
+	 * Returns whether the simulation has finished.
+	 * @return Finished or not
+	 */
+	boolean isFinished();
+}
@@ -0,0 +1,153 @@
+
+/**
+ * Holds the record keeping of a simulation and calculates the final
+ * statistics once the simulation is finished.
+ */
+public class SimulationStats {
+
+// ---------- Field members
+
+	private long totalNumOfJobs, totalJobTime, CPUIdleTime;
+	private double avgWaitTime, avgRespTime, throughput, taTime;
+
+
+// ---------- Public methods
+
+	/**
+	 * Initializes all records to 0.
+	 */
+	public SimulationStats() {
+		totalNumOfJobs = 0;
+		totalJobTime = 0;
+		avgRespTime = 0;
+		taTime = 0;
+		avgWaitTime = 0;
+		throughput = 0;
+		CPUIdleTime = 0;
+	}
+
+	/**
+	 * Creates a copy of the records of another simulation.
+	 * @param other Records to be copied
+	 */
+	public SimulationStats(SimulationStats other) {
+		this(other.totalNumOfJobs, other.totalJobTime, other.CPUIdleTime,
+			 other.avgRespTime, other.avgWaitTime, other.taTime,
+			 other.throughput);
+	}
+
+	/**
+	 * Creates the final statistics of a finished simulation from their
+	 * values, such as when they are read back from a trace.
+	 * @param totalJobs Total number of jobs
+	 * @param totalJobTime Total time of all jobs
+	 * @param idleTime Total CPU idle time
+	 * @param avgRespTime Average response time
+	 * @param avgWaitTime Average waiting time
+	 * @param taTime Average turnaround time
+	 * @param throughput Average throughput
+	 */
+	public SimulationStats(long totalJobs, long totalJobTime, long idleTime,
+						   double avgRespTime, double avgWaitTime,
+						   double taTime, double throughput) {
+		totalNumOfJobs = totalJobs;
+		this.totalJobTime = totalJobTime;
+		CPUIdleTime = idleTime;
+		this.avgRespTime = avgRespTime;
+		this.avgWaitTime = avgWaitTime;
+		this.taTime = taTime;
+		this.throughput = throughput;
+	}
+
+	/**
+	 * Records a job that left the system.
+	 * @param timeInSys Time the job spent in the system
+	 * @param waitingTime Time the job spent waiting in queues
+	 */
+	public void recordDeparture(int timeInSys, int waitingTime) {
+		totalJobTime += timeInSys;
+		avgWaitTime += waitingTime;
+		totalNumOfJobs++;
+	}
+
+	/**
+	 * Adds to the time the CPU spent without a job.
+	 * @param ticks Number of idle ticks
+	 */
+	public void addIdleTime(int ticks) {
+		CPUIdleTime += ticks;
+	}
+
+	/**
+	 * Counts a tick in which a job was left waiting in the first queue.
+	 */
+	public void incResponseTime() {
+		avgRespTime++;
+	}
+
+	/**
+	 * Totals out records and gets the data ready for the final output.
+	 */
+	public void totalRecords() {
+		avgRespTime /= totalNumOfJobs;
+		avgWaitTime /= totalNumOfJobs;
+		taTime = (double)totalJobTime / (double)totalNumOfJobs;
+		throughput = (double)totalNumOfJobs / (double)totalJobTime;
+	}
+
+	/**
+	 * Returns the number of jobs that left the system.
+	 * @return Total number of jobs
+	 */
+	public long getTotalJobs() {
+		return totalNumOfJobs;
+	}
+
+	/**
+	 * Returns the time that all jobs spent in the system combined.
+	 * @return Total time of all jobs
+	 */
+	public long getTotalJobTime() {
+		return totalJobTime;
+	}
+
+	/**
+	 * Returns the average response time.
+	 * @return Average response time
+	 */
+	public double getAvgResponseTime() {
+		return avgRespTime;
+	}
+
+	/**
+	 * Returns the average turnaround time.
+	 * @return Average turnaround time
+	 */
+	public double getAvgTurnaroundTime() {
+		return taTime;
+	}
+
+	/**
+	 * Returns the average waiting time.
+	 * @return Average waiting time
+	 */
+	public double getAvgWaitingTime() {
+		return avgWaitTime;
+	}
+
+	/**
+	 * Returns the average throughput.
+	 * @return Average throughput
+	 */
+	public double getThroughput() {
+		return throughput;
+	}
+
+	/**
+	 * Returns the time the CPU spent without a job.
+	 * @return Total CPU idle time
+	 */
+	public long getCPUIdleTime() {
+		return CPUIdleTime;
+	}
+}
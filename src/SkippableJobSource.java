@@ -0,0 +1,20 @@
+
+/**
+ * A JobSource that can pass over jobs without reading them into a table,
+ * such as a recording that can jump straight to a job or a file that can
+ * be opened at the line of a job. An engine resumed from a snapshot skips
+ * the jobs the snapshot has already read this way instead of reading
+ * them one by one.
+ */
+public interface SkippableJobSource extends JobSource {
+
+	/**
+	 * Passes over jobs so that the next job handed out is the given one.
+	 * Jobs are counted from 0 at the first job of the input, wherever
+	 * the source was opened.
+	 * @param job Number of the next job to be handed out, not before the
+	 * job the source is at
+	 * @return Number of the next job, less than job if the source ran out
+	 */
+	public long skipTo(long job);
+}
@@ -0,0 +1,286 @@
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Holds the sprites of the GUI, ready to be drawn. The sprites are packed
+ * into one image, atlas.png, with an index of where each one lies in
+ * atlas.txt, so starting the GUI takes a single image decode. When there
+ * is no atlas the separate images are decoded side by side on all cores
+ * instead. Either way each sprite is turned into an image in the format
+ * of the screen, which Java2D can keep in video memory.
+ *
+ * The atlas is made from the images of a folder by running this class:
+ *
+ *     java SpriteAtlas images background.png
+ *
+ * Images named after the folder are left out of the atlas, such as ones
+ * that are large and can be loaded later.
+ */
+public class SpriteAtlas {
+
+// ---------- Field members
+
+	public static final String IMAGE_FILE = "atlas.png";
+	public static final String INDEX_FILE = "atlas.txt";
+	private static final int ATLAS_WIDTH = 512;
+
+	private HashMap<String, BufferedImage> sprites;
+
+
+// ---------- Public methods
+
+	/**
+	 * Loads the given sprites from the atlas of a folder, or from their
+	 * own images in the folder when it has no atlas.
+	 * @param dir Folder of the images
+	 * @param names Names of the sprites, the image file names without
+	 *        ".png"
+	 * @return Atlas holding every sprite asked for
+	 * @throws IOException A sprite could not be found or read
+	 */
+	public static SpriteAtlas load(File dir, String... names)
+			throws IOException {
+		File image = new File(dir, IMAGE_FILE);
+		File index = new File(dir, INDEX_FILE);
+		SpriteAtlas atlas = new SpriteAtlas();
+		if (image.isFile() && index.isFile())
+			atlas.readAtlas(image, index);
+		else
+			atlas.readImages(dir, names);
+		for (String name : names) {
+			if (!atlas.sprites.containsKey(name))
+				throw new IOException("Missing image: " + name);
+		}
+		return atlas;
+	}
+
+	/**
+	 * Returns a sprite.
+	 * @param name Name of the sprite
+	 * @return Sprite or null if it is not held
+	 */
+	public BufferedImage get(String name) {
+		return sprites.get(name);
+	}
+
+	/**
+	 * Decodes an image into the format of the screen.
+	 * @param file Image file
+	 * @return Image ready to be drawn
+	 * @throws IOException Image could not be read
+	 */
+	public static BufferedImage readImage(File file) throws IOException {
+		BufferedImage image = ImageIO.read(file);
+		if (image == null)
+			throw new IOException("Not an image: " + file);
+		return toCompatible(image);
+	}
+
+	/**
+	 * Packs the images of a folder into an atlas in that folder.
+	 * @param args Folder of the images, followed by the names of images to
+	 *        be left out
+	 * @throws IOException Images could not be read or the atlas written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: java SpriteAtlas <folder> [left out...]");
+			return;
+		}
+		File dir = new File(args[0]);
+		List<String> leftOut = Arrays.asList(args).subList(1, args.length);
+		File[] files = dir.listFiles();
+		if (files == null) throw new IOException("Not a folder: " + dir);
+
+		List<File> packed = new ArrayList<File>();
+		for (File file : files) {
+			String name = file.getName();
+			if (name.endsWith(".png") && !name.equals(IMAGE_FILE) &&
+				!leftOut.contains(name))
+				packed.add(file);
+		}
+		pack(packed, new File(dir, IMAGE_FILE), new File(dir, INDEX_FILE));
+		System.out.println("Packed " + packed.size() + " images into " +
+						   new File(dir, IMAGE_FILE));
+	}
+
+
+// ---------- Private methods
+
+	private SpriteAtlas() {
+		sprites = new HashMap<String, BufferedImage>();
+	}
+
+	/**
+	 * Cuts every sprite listed in the index out of the atlas image.
+	 * @param image Atlas image
+	 * @param index Index of the atlas
+	 * @throws IOException Atlas could not be read
+	 */
+	private void readAtlas(File image, File index) throws IOException {
+		BufferedImage atlas = ImageIO.read(image);
+		if (atlas == null) throw new IOException("Not an image: " + image);
+		try (BufferedReader in = Files.newBufferedReader(index.toPath(),
+				StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) continue;
+				String[] field = line.split("\\s+");
+				if (field.length != 5)
+					throw new IOException("Bad atlas entry: " + line);
+				try {
+					BufferedImage sprite = atlas.getSubimage(
+							Integer.parseInt(field[1]), Integer.parseInt(field[2]),
+							Integer.parseInt(field[3]), Integer.parseInt(field[4]));
+					sprites.put(field[0], toCompatible(sprite));
+				} catch (RuntimeException e) {
+					throw new IOException("Bad atlas entry: " + line, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decodes the image of every sprite side by side.
+	 * @param dir Folder of the images
+	 * @param names Names of the sprites
+	 * @throws IOException An image could not be read
+	 */
+	private void readImages(File dir, String[] names) throws IOException {
+		ExecutorService decoders = Executors.newFixedThreadPool(
+				Math.min(names.length, Runtime.getRuntime().availableProcessors()));
+		try {
+			List<Future<BufferedImage>> images =
+					new ArrayList<Future<BufferedImage>>();
+			for (String name : names) {
+				final File file = new File(dir, name + ".png");
+				images.add(decoders.submit(new Callable<BufferedImage>() {
+					public BufferedImage call() throws IOException {
+						return readImage(file);
+					}
+				}));
+			}
+			for (int i = 0; i < names.length; i++) {
+				sprites.put(names[i], images.get(i).get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading images", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException)e.getCause();
+			throw new IOException("Images could not be read", e.getCause());
+		} finally {
+			decoders.shutdownNow();
+		}
+	}
+
+	/**
+	 * Copies an image into the format of the screen, or into plain ARGB
+	 * when there is no screen.
+	 * @param image Decoded image
+	 * @return Image ready to be drawn
+	 */
+	private static BufferedImage toCompatible(BufferedImage image) {
+		BufferedImage result;
+		if (GraphicsEnvironment.isHeadless()) {
+			result = new BufferedImage(image.getWidth(), image.getHeight(),
+									   BufferedImage.TYPE_INT_ARGB_PRE);
+		} else {
+			GraphicsConfiguration config = GraphicsEnvironment
+					.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+					.getDefaultConfiguration();
+			result = config.createCompatibleImage(image.getWidth(),
+					image.getHeight(), Transparency.TRANSLUCENT);
+		}
+		Graphics2D g = result.createGraphics();
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return result;
+	}
+
+	/**
+	 * Packs images into rows of an atlas, tallest first, and writes the
+	 * atlas and its index.
+	 * @param files Images to be packed
+	 * @param image Atlas image to be written
+	 * @param index Index to be written
+	 * @throws IOException Images could not be read or the atlas written
+	 */
+	private static void pack(List<File> files, File image, File index)
+			throws IOException {
+		final HashMap<File, BufferedImage> images =
+				new HashMap<File, BufferedImage>();
+		for (File file : files) {
+			BufferedImage img = ImageIO.read(file);
+			if (img == null) throw new IOException("Not an image: " + file);
+			images.put(file, img);
+		}
+		Collections.sort(files, new Comparator<File>() {
+			public int compare(File a, File b) {
+				int byHeight = images.get(b).getHeight() - images.get(a).getHeight();
+				return byHeight != 0 ? byHeight : a.getName().compareTo(b.getName());
+			}
+		});
+
+		// Place the images on shelves as tall as the first image on them
+		int width = ATLAS_WIDTH;
+		for (BufferedImage img : images.values())
+			width = Math.max(width, img.getWidth());
+		int[][] place = new int[files.size()][];
+		int x = 0, y = 0, shelf = 0;
+		for (int i = 0; i < files.size(); i++) {
+			BufferedImage img = images.get(files.get(i));
+			if (x + img.getWidth() > width) {
+				x = 0;
+				y += shelf;
+				shelf = 0;
+			}
+			place[i] = new int[] { x, y };
+			x += img.getWidth();
+			shelf = Math.max(shelf, img.getHeight());
+		}
+
+		BufferedImage atlas = new BufferedImage(width, y + shelf,
+												BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = atlas.createGraphics();
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(
+				index.toPath(), StandardCharsets.UTF_8))) {
+			out.println("# sprite x y width height");
+			for (int i = 0; i < files.size(); i++) {
+				BufferedImage img = images.get(files.get(i));
+				String name = files.get(i).getName();
+				g.drawImage(img, place[i][0], place[i][1], null);
+				out.println(name.substring(0, name.length() - 4) + " " +
+						place[i][0] + " " + place[i][1] + " " +
+						img.getWidth() + " " + img.getHeight());
+			}
+		}
+		g.dispose();
+		if (!ImageIO.write(atlas, "png", image))
+			throw new IOException("Atlas could not be written");
+	}
+}
@@ -0,0 +1,119 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Images of the strings drawn in the GUI, kept by value. Laying out and
+ * rendering text is far slower than copying an image, and the GUI draws
+ * the same few strings over and over, so each string is rendered once in
+ * one font and color and then only copied. The least recently drawn
+ * strings are dropped once the cache is full. Meant to be used on the
+ * event dispatch thread only.
+ */
+public class TextCache {
+
+// ---------- Field members
+
+	public static final int DEFAULT_SIZE = 1024;
+	// Room for glyphs that reach past the start or end of the string
+	private static final int PAD = 2;
+
+	private Font font;
+	private Color color;
+	private FontMetrics metrics;
+	private LinkedHashMap<String, BufferedImage> images;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a cache of the default size.
+	 * @param font Font of the strings
+	 * @param color Color of the strings
+	 */
+	public TextCache(Font font, Color color) {
+		this(font, color, DEFAULT_SIZE);
+	}
+
+	/**
+	 * Creates a cache that holds at most the given number of strings.
+	 * @param font Font of the strings
+	 * @param color Color of the strings
+	 * @param maxSize Most strings held, at least 1
+	 */
+	public TextCache(Font font, Color color, final int maxSize) {
+		if (maxSize < 1)
+			throw new IllegalArgumentException("Size must be at least 1");
+		this.font = font;
+		this.color = color;
+		images = new LinkedHashMap<String, BufferedImage>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(
+					Map.Entry<String, BufferedImage> eldest) {
+				return size() > maxSize;
+			}
+		};
+		Graphics g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB)
+				.getGraphics();
+		metrics = g.getFontMetrics(font);
+		g.dispose();
+	}
+
+	/**
+	 * Draws a string the way Graphics.drawString() would.
+	 * @param g Buffer that all the drawing happens on
+	 * @param text String to be drawn
+	 * @param x X position of the start of the string
+	 * @param y Y position of the baseline of the string
+	 */
+	public void drawString(Graphics g, String text, int x, int y) {
+		g.drawImage(getImage(text), x - PAD, y - metrics.getAscent(), null);
+	}
+
+	/**
+	 * Returns the width of a string as drawn.
+	 * @param text String to be measured
+	 * @return Width in pixels
+	 */
+	public int getWidth(String text) {
+		return metrics.stringWidth(text);
+	}
+
+	/**
+	 * Returns the number of strings held.
+	 * @return Strings held
+	 */
+	public int size() {
+		return images.size();
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Returns the image of a string, rendering it if it is not held.
+	 * @param text String to be drawn
+	 * @return Image of the string
+	 */
+	private BufferedImage getImage(String text) {
+		BufferedImage image = images.get(text);
+		if (image == null) {
+			image = new BufferedImage(metrics.stringWidth(text) + 2 * PAD,
+					metrics.getAscent() + metrics.getDescent(),
+					BufferedImage.TYPE_INT_ARGB_PRE);
+			Graphics2D g = image.createGraphics();
+			g.setFont(font);
+			g.setColor(color);
+			g.drawString(text, PAD, metrics.getAscent());
+			g.dispose();
+			images.put(text, image);
+		}
+		return image;
+	}
+}
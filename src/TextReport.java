@@ -0,0 +1,87 @@
+import java.io.PrintWriter;
+
+/**
+ * Writes the event table and final statistics of a simulation to the
+ * console and file as the events happen. Every row is formatted once and
+ * then written to both outputs. See AsyncEventLog for writing the table
+ * off the simulation thread.
+ */
+public class TextReport extends SimulationAdapter {
+
+// ---------- Field members
+
+	private PrintWriter pw;
+	private JobTable jobs;
+	private StringBuilder row;
+
+
+// ---------- Public methods
+
+	/**
+	 * Constructor requires the PrintWriter that is written to alongside
+	 * the console.
+	 * @param pw File that is output as a result of program execution
+	 */
+	public TextReport(PrintWriter pw) {
+		this.pw = pw;
+		row = new StringBuilder();
+	}
+
+	/**
+	 * Outputs the header string to the console output and file.
+	 */
+	public void onStart(JobTable jobs) {
+		this.jobs = jobs;
+		System.out.print(EventFormatter.header());
+		pw.print(EventFormatter.header());
+	}
+
+	/**
+	 * Reports to the console and file when a job arrives with respect to
+	 * the current system clock.
+	 */
+	public void onArrival(int clock, int job) {
+		row.setLength(0);
+		EventFormatter.appendArrival(row, clock, jobs.getPID(job),
+				jobs.getTimeRequired(job));
+		print(row);
+	}
+
+	/**
+	 * Reports to the console and file when a job departs with respect to
+	 * the current system clock.
+	 */
+	public void onDeparture(int clock, int job) {
+		row.setLength(0);
+		EventFormatter.appendDeparture(row, clock, jobs.getPID(job),
+				jobs.getTimeInSystem(job) - jobs.getArrivalTime(job),
+				jobs.getCurrentQueue(job) + 1);
+		print(row);
+	}
+
+	/**
+	 * Reports all the statistics for the program to the console and file.
+	 */
+	public void onFinish(SimulationStats stats) {
+		StringBuilder console = new StringBuilder();
+		StringBuilder file = new StringBuilder();
+		EventFormatter.appendStats(console, stats, false);
+		EventFormatter.appendStats(file, stats, true);
+		System.out.print(console);
+		pw.print(file);
+
+		System.out.print(EventFormatter.closing());
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Writes the given text to the console and file.
+	 * @param text Text to be written
+	 */
+	private void print(CharSequence text) {
+		System.out.append(text);
+		pw.append(text);
+	}
+}
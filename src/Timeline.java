@@ -0,0 +1,177 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Records a running simulation so that any earlier moment of it can be
+ * shown again. The jobs are recorded as they are read and a keyframe,
+ * an EngineSnapshot of the whole state, is taken every so many simulated
+ * ticks. Seeking to a time resumes a new engine from the last keyframe
+ * before it and runs it up to that time, skipping the ticks in which
+ * nothing happens.
+ *
+ * Older keyframes are thinned out. Keyframes less than
+ * KEYFRAMES_PER_SPACING intervals old are one interval apart. The next
+ * twice as many intervals back get a spacing of two intervals, the next
+ * four times as many get four, and so on. The first keyframe is always
+ * kept. The number of keyframes therefore only grows with the logarithm
+ * of the run; since the clock is an int, a run never holds more than
+ * about 600 of them. A seek near the live end replays at most one
+ * interval. A seek further back replays at most twice the spacing there,
+ * which is never more than about 2% of the run.
+ *
+ * The recorded jobs are kept for the whole run, at 12 bytes per job, so
+ * a run of 100M ticks at 80% load holds about 120 MB of them.
+ *
+ * The simulation thread records; seeks can run on any other thread, each
+ * with an engine of its own.
+ */
+public class Timeline {
+
+// ---------- Field members
+
+	public static final int DEFAULT_INTERVAL = 16384;
+	// Intervals of age kept at one interval apart; see spacingAt()
+	public static final int KEYFRAMES_PER_SPACING = 32;
+
+	private RecordingJobSource jobs;
+	private ConcurrentSkipListMap<Integer, EngineSnapshot> keyframes;
+	private int interval;
+	private int maxHeld;
+	private long nextKeyframe;
+	private int sinceThinned; // Keyframes taken since the last thinning
+	private volatile int end;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a timeline with a keyframe every DEFAULT_INTERVAL ticks.
+	 * @param jobs Source the simulation reads its jobs through
+	 * @param maxHeld Jobs held per queue by the frames of seeks
+	 */
+	public Timeline(RecordingJobSource jobs, int maxHeld) {
+		this(jobs, maxHeld, DEFAULT_INTERVAL);
+	}
+
+	/**
+	 * Creates a timeline with a keyframe every so many ticks.
+	 * @param jobs Source the simulation reads its jobs through
+	 * @param maxHeld Jobs held per queue by the frames of seeks
+	 * @param interval Simulated ticks between keyframes, at least 1
+	 */
+	public Timeline(RecordingJobSource jobs, int maxHeld, int interval) {
+		if (interval < 1)
+			throw new IllegalArgumentException("Interval must be at least 1");
+		this.jobs = jobs;
+		this.maxHeld = maxHeld;
+		this.interval = interval;
+		keyframes = new ConcurrentSkipListMap<Integer, EngineSnapshot>();
+		nextKeyframe = 0;
+		sinceThinned = 0;
+		end = 0;
+	}
+
+	/**
+	 * Records how far the simulation has come and takes a keyframe if
+	 * one is due. Must be called on the simulation thread between steps,
+	 * from the start on.
+	 * @param engine Simulation being recorded, reading through the jobs
+	 * of this timeline
+	 */
+	public void record(SimulationEngine engine) {
+		int clock = engine.getClock();
+		if (clock >= nextKeyframe) {
+			keyframes.put(clock, engine.snapshot());
+			if (++sinceThinned == KEYFRAMES_PER_SPACING) {
+				thinKeyframes();
+				sinceThinned = 0;
+			}
+			nextKeyframe = (long)clock + interval;
+		}
+		end = clock;
+	}
+
+	/**
+	 * Returns the latest time that was recorded. Safe to call from any
+	 * thread.
+	 * @return Latest system time that can be sought
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * Returns the number of keyframes held.
+	 * @return Keyframes held
+	 */
+	public int getKeyframeCount() {
+		return keyframes.size();
+	}
+
+	/**
+	 * Brings the simulation back to a recorded time. Safe to call from
+	 * any thread.
+	 * @param clock System time to go to, at most getEnd()
+	 * @return Publisher of the simulation at that time, whose latest
+	 * frame shows it
+	 */
+	public FramePublisher seek(int clock) {
+		if (clock < 0 || clock > end)
+			throw new IllegalArgumentException("Time " + clock +
+					" has not been recorded");
+		Map.Entry<Integer, EngineSnapshot> keyframe =
+				keyframes.floorEntry(clock);
+		if (keyframe == null)
+			throw new IllegalStateException("Nothing recorded yet");
+
+		SimulationEngine engine = new SimulationEngine(jobs.replay(),
+				new SimulationAdapter() {}, keyframe.getValue());
+		FramePublisher frames = new FramePublisher(engine);
+		frames.setMaxHeld(maxHeld);
+		engine.addListener(frames);
+		engine.start();
+		engine.advanceTo(clock);
+		frames.publish();
+		return frames;
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Drops the keyframes that are not needed for the spacing their age
+	 * calls for. Going back from the newest, a keyframe is dropped if the
+	 * keyframes on either side of it are no further apart than that
+	 * spacing. The newest and the first keyframe are always kept.
+	 */
+	private void thinKeyframes() {
+		Integer[] clocks = keyframes.keySet().toArray(new Integer[0]);
+		int newest = clocks[clocks.length - 1];
+		long lastKept = newest;
+		for (int i = clocks.length - 2; i > 0; i--) {
+			if (lastKept - clocks[i - 1] <= spacingAt(newest - clocks[i]))
+				keyframes.remove(clocks[i]);
+			else
+				lastKept = clocks[i];
+		}
+	}
+
+	/**
+	 * Returns how far apart keyframes of the given age are kept. Ages up
+	 * to KEYFRAMES_PER_SPACING intervals get one interval, and each
+	 * following band of ages, twice as wide as the one before, gets twice
+	 * the spacing.
+	 * @param age Ticks from the keyframe to the newest keyframe
+	 * @return Spacing in ticks
+	 */
+	private long spacingAt(long age) {
+		long band = (long)interval * KEYFRAMES_PER_SPACING;
+		long spacing = interval;
+		while (age >= band) {
+			age -= band;
+			band *= 2;
+			spacing *= 2;
+		}
+		return spacing;
+	}
+}
@@ -0,0 +1,65 @@
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Paths;
+
+/**
+ * Converts a binary trace into the text table that the simulation writes
+ * to its output file. Only ARRIVAL and DEPARTURE events are part of the
+ * table.
+ */
+public class TraceConverter {
+
+	/**
+	 * Converts the trace given as the first argument into the text file
+	 * given as the second argument.
+	 * @param args Trace file and output file
+	 */
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			System.out.println("Usage: java TraceConverter <trace> <output>");
+			System.exit(1);
+		}
+		try (BinaryTraceReader reader = new BinaryTraceReader(
+					new BufferedInputStream(new FileInputStream(args[0])));
+			 ChannelWriter out = new ChannelWriter(Paths.get(args[1]))) {
+			convert(reader, out);
+
+		} catch (IOException e) {
+			System.out.println("Trace could not be converted: " +
+					e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Writes the text table of every event left in the reader, followed
+	 * by the final statistics.
+	 * @param reader Trace to be converted
+	 * @param out Output of the text table
+	 * @throws IOException Trace could not be read or output written
+	 */
+	public static void convert(BinaryTraceReader reader, Writer out)
+			throws IOException {
+		StringBuilder sb = new StringBuilder(1 << 15);
+		sb.append(EventFormatter.header());
+		while (reader.next()) {
+			if (reader.getType() == BinaryTraceWriter.ARRIVAL)
+				EventFormatter.appendArrival(sb, reader.getClock(),
+						reader.getPID(), reader.getValue());
+			else if (reader.getType() == BinaryTraceWriter.DEPARTURE)
+				EventFormatter.appendDeparture(sb, reader.getClock(),
+						reader.getPID(), reader.getValue(),
+						reader.getLastQueue());
+
+			if (sb.length() >= 1 << 14) {
+				out.append(sb);
+				sb.setLength(0);
+			}
+		}
+		EventFormatter.appendStats(sb, reader.getStats(), true);
+		out.append(sb);
+		out.flush();
+	}
+}
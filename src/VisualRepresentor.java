@@ -7,21 +7,71 @@ import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
-import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
+import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JSlider;
 import javax.swing.JTextArea;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.text.DefaultCaret;
+import javax.swing.text.Element;
 
 /**
  * A class that was hacked away at to get the MFQ class visualized. It is
  * designed around, hard-coded, and fully dependent on the MFQ class.
+ *
+ * The simulation runs on its own thread and publishes an immutable
+ * FrameSnapshot after every step. A Swing timer picks up the latest one on
+ * the event dispatch thread, sets where every GUI job element belongs and
+ * moves it a step closer on each frame, so the simulation never waits for
+ * the animation. The GUI job elements are only ever touched on the event
+ * dispatch thread, and the simulation is only seen through the frames.
+ *
+ * Only the jobs that can be seen get a GUI job element. Frames hold no
+ * more jobs of a queue than fit on screen, elements of jobs that leave
+ * the view are put back in a pool for the next jobs, and painting skips
+ * whatever lies outside the area being painted. The work per frame thus
+ * depends on what is on screen, not on how many jobs have arrived.
+ *
+ * A queue that holds more than AGGREGATE_ABOVE jobs is drawn as a single
+ * strip instead, colored by the ages of the jobs along the queue, with
+ * the number of jobs and the spread of their ages on top. It goes back
+ * to single jobs once fewer than AGGREGATE_BELOW are waiting.
+ *
+ * In turbo mode the simulation runs as fast as it can and only the latest
+ * frame is shown at each refresh, so the ticks in between are skipped.
+ * The ticks simulated per second are measured from the frames shown.
+ * Only the last lines of the event log of each frame are added to the
+ * output view, which keeps no more than MAX_OUTPUT_LINES.
+ *
+ * The timeline slider below the queues goes back to any earlier time of
+ * the run. Seeking asks the Timeline for a replay of the simulation up to
+ * that time on a background thread and shows its frame instead of the
+ * live one, while the live simulation goes on. Only the latest seek is
+ * run once the one before it is done, so dragging the slider never
+ * queues up replays. Moving the slider to its end goes back to live.
+ *
+ * The sprites come from a SpriteAtlas. The background is not needed to
+ * start, so it is decoded in the background and drawn once it is ready.
+ *
+ * The scene itself is drawn by a SceneRenderer, the same one that draws
+ * frames without a window. Each frame paints only the areas where
+ * something changed: the old and new places of the GUI job elements that
+ * moved or changed, and the parts of the frame whose values changed.
  */
 public class VisualRepresentor extends JPanel {
 	
@@ -29,30 +79,63 @@ public class VisualRepresentor extends JPanel {
 	
 	private static final long serialVersionUID = 1L;
 	private static final int TIMER_DELAY = 16; // ~60fps
-	private int visualID;
+	private static final File IMAGE_DIR = new File("images");
+	private static final Rectangle QUANTUM_AREA = new Rectangle(420, 128, 130, 20);
+	private static final int TURBO_SPEED = 8; // Animation speed in turbo
+	private static final long RATE_NANOS = 500000000L;
+	private static final int LOG_LINES_PER_FRAME = 32;
+	private static final int MAX_OUTPUT_LINES = 1000;
+	private static final int LIVE = -1; // Seek target of the live frames
 	
 	// Required images
-	private BufferedImage imgBG, imgCPU;
 	private BufferedImage imgStart1, imgStart2, imgStart3;
 	private BufferedImage imgSpd11, imgSpd12, imgSpd13;
 	private BufferedImage imgSpd21, imgSpd22, imgSpd23;
 	private BufferedImage imgSpd31, imgSpd32, imgSpd33;
 	private BufferedImage imgSpd41, imgSpd42, imgSpd43;
 	private BufferedImage imgSpd51, imgSpd52, imgSpd53;
-	private BufferedImage imgJob, imgJobSpace;
+	private BufferedImage imgTurbo1, imgTurbo2, imgTurbo3;
 	
 	// Button information
 	private JButton btnStart, btnSpd1, btnSpd2, btnSpd3, btnSpd4, btnSpd5;
+	private JButton btnTurbo;
 	
 	// Animation fields
 	private ArrayList<JobVisuals> jobList;
-	private List<StaticVisuals> elements;
-	private List<JobVisuals> jobs;
+	private HashMap<Integer, JobVisuals> visualsByID, leavingByID;
+	private ArrayDeque<JobVisuals> pool;
+	private boolean[] aggregated;
+	
+	// Drawing fields
+	private SceneRenderer scene;
+	private ArrayList<Rectangle> dirty;
+	private String statText;
 	private JTextArea output, systemStat;
 	private JScrollPane outScroller;
 	private String sysStat;
-	private boolean waitState, isAnimating;
-	private int spdMultiplier, sysTime, cpuQuantum;
+	private volatile boolean waitState;
+	private volatile int spdMultiplier;
+	private volatile boolean turbo;
+	private int sysTime, cpuQuantum;
+	
+	// Ticks simulated per second, measured over RATE_NANOS
+	private long rateStart;
+	private int rateClock;
+	private double tickRate;
+	
+	// Frames of the simulation and the one on screen
+	private volatile FramePublisher frames;
+	private FramePublisher replay, shownSource;
+	private FrameSnapshot shownFrame;
+	private long logShown, departuresShown;
+	private Timer renderTimer;
+	
+	// Timeline of the run and the time being sought
+	private volatile Timeline timeline;
+	private JSlider timeSlider;
+	private JLabel timeLabel;
+	private boolean seeking, sliderUpdating, settleNext;
+	private int seekTarget;
 	
 	
 // ---------- Public methods
@@ -63,11 +146,26 @@ public class VisualRepresentor extends JPanel {
 	 */
 	public VisualRepresentor() throws IOException {
 		waitState = true;
-		visualID = -1;
 		spdMultiplier = 1;
+		turbo = false;
 		sysTime = 0;
+		rateStart = System.nanoTime();
+		rateClock = 0;
+		tickRate = 0;
 		cpuQuantum = 0;
 		sysStat = "Waiting to start";
+		logShown = 0;
+		departuresShown = 0;
+		seeking = false;
+		sliderUpdating = false;
+		settleNext = false;
+		seekTarget = LIVE;
+		renderTimer = new Timer(TIMER_DELAY, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				renderFrame();
+			}
+		});
+		renderTimer.setCoalesce(true);
 		
 		initWindow();
 		loadImages();
@@ -75,30 +173,6 @@ public class VisualRepresentor extends JPanel {
 		createButtons();
 	}
 	
-	/**
-	 * Adds a job element to the GUI with its respective data.
-	 * @param pid Job's process ID
-	 * @param cpuTimeRequired Job's CPU time required
-	 */
-	public void addJobVisual(int pid, int cpuTimeRequired) {
-		JobVisuals temp = new JobVisuals(pid,
-										 cpuTimeRequired,
-										 spdMultiplier);
-		temp.setImage(imgJob);
-		jobList.add(temp);
-		addJobObject(temp);
-		output.append("\nARRIVAL:\t\t" + pid + " - @ - " + sysTime);
-		visualID++;
-	}
-	
-	/**
-	 * Returns the index of the most recently added GUI job element.
-	 * @return <code>visualID</code>
-	 */
-	public int getVID() {
-		return visualID;
-	}
-	
 	/**
 	 * Returns the speed multiplier of the GUI. This changes the speed of the
 	 * program overall.
@@ -108,6 +182,15 @@ public class VisualRepresentor extends JPanel {
 		return spdMultiplier;
 	}
 	
+	/**
+	 * Returns whether the GUI is in turbo mode, in which the simulation
+	 * runs as fast as it can.
+	 * @return <code>turbo</code>
+	 */
+	public boolean inTurboMode() {
+		return turbo;
+	}
+	
 	/**
 	 * Returns whether the program is in paused state or not.
 	 * @return <code>waitState</code>
@@ -117,129 +200,328 @@ public class VisualRepresentor extends JPanel {
 	}
 	
 	/**
-	 * Handles animating the GUI. Moves all GUI job elements to their proper
-	 * places. MFQ calculating will pause until the animation is finished.
-	 * @throws InterruptedException Thread sleep interruption
+	 * Starts the timer that draws the frames of the animation from the
+	 * frames the simulation publishes. Safe to call from any thread.
+	 * @param frames Publisher of the simulation to be shown
+	 * @param timeline Recording of the simulation that the timeline
+	 * slider seeks in
 	 */
-	public void animateGUI() throws InterruptedException {
-		boolean isAnimatingState;
-		do {
-			isAnimatingState = false;
-			for (JobVisuals visuals : jobList) {
-				isAnimating = visuals.updateJobVisual();
-				this.repaint();
-				if (isAnimating) isAnimatingState = true;
-				while(waitState) Thread.sleep(1);
-				// Loop until pause is off
-				// Sleep is so CPU isn't running constantly
-			}
-			setStatState();
-			this.repaint();
-			Thread.sleep(TIMER_DELAY);
-		} while(isAnimatingState);
+	public void startRenderLoop(FramePublisher frames, Timeline timeline) {
+		frames.setMaxHeld(SceneRenderer.VISIBLE_ROWS);
+		this.frames = frames;
+		this.timeline = timeline;
+		renderTimer.start();
 	}
 	
 	/**
-	 * Decrements the remaining time of the GUI job with the given index
-	 * parameter.
-	 * @param n Index of the job to be decremented
+	 * Stops the timer that draws the frames of the animation.
 	 */
-	public void decJobVisual(int n) {
-		JobVisuals temp = jobs.get(n);
-		temp.decTime();
+	public void stopRenderLoop() {
+		renderTimer.stop();
 	}
 	
+	
+// ---------- Private methods
+	
 	/**
-	 * Decrements the GUI CPU quantum.
+	 * Draws one frame of the animation on the event dispatch thread.
+	 * Takes in the latest frame of the simulation if it is new, moves
+	 * every GUI job element a step closer to its place and repaints.
 	 */
-	public void decQuantumTime() {
-		cpuQuantum--;
+	private void renderFrame() {
+		updateTimeSlider();
+		FramePublisher source = replay != null ? replay : frames;
+		if (source != shownSource) resetView(source);
+		FrameSnapshot frame = source.getLatest();
+		if (frame != shownFrame) showFrame(frame);
+		for (JobVisuals visuals : jobList) {
+			Rectangle before = visuals.getBounds();
+			visuals.updateJobVisual();
+			if (visuals.hasChanged()) {
+				dirty.add(before);
+				dirty.add(visuals.getBounds());
+				visuals.markDrawn();
+			}
+		}
+		recycleJobVisuals();
+		measureTickRate();
+		setStatState();
+		paintDirtyAreas();
 	}
 	
 	/**
-	 * Shifts all GUI job elements up in the given GUI queue index.
-	 * @param queueLevel Index of the queue to be shifted
+	 * Stretches the timeline slider to the latest time recorded and keeps
+	 * its knob at the end while the live frames are shown.
 	 */
-	public void decQueueDepth(int queueLevel) {
-		for (JobVisuals visuals : jobList) {
-			if (visuals.getQueueLevel() == queueLevel)
-				visuals.decQueueDepth();
-		}
+	private void updateTimeSlider() {
+		sliderUpdating = true;
+		timeSlider.setMaximum(timeline.getEnd());
+		if (seekTarget == LIVE) timeSlider.setValue(timeSlider.getMaximum());
+		sliderUpdating = false;
 	}
 	
 	/**
-	 * Sets the given GUI job element to the next GUI queue.
-	 * @param n Index of the queue to be moved
-	 * @throws InterruptedException Thread sleep interruption
+	 * Takes every GUI job element out of the view when the frames come
+	 * from another source, whose visual IDs have nothing to do with the
+	 * ones shown, and starts the event log of the new source. The jobs of
+	 * its first frame are put straight in place, and the ticks per second
+	 * are measured anew.
+	 * @param source Source of the frames to be shown
 	 */
-	public void setToQueueJobVisual(int n) throws InterruptedException {
-		JobVisuals temp = jobs.get(n);
-		sysStat = "CPU Preemption";
-		setStatState();
-		temp.moveToQueue();
+	private void resetView(FramePublisher source) {
+		pool.addAll(jobList);
+		jobList.clear();
+		visualsByID.clear();
+		leavingByID.clear();
+		aggregated = new boolean[0];
+		logShown = 0;
+		departuresShown = 0;
+		if (shownSource != null) {
+			output.append("\n------------------");
+			output.append(source == replay ?
+					"\nReplaying from the timeline" : "\nBack to live");
+		}
+		shownSource = source;
+		shownFrame = null;
+		settleNext = true;
+		rateClock = -1; // Measured anew on the next frame
+		dirty.add(new Rectangle(0, 0, getWidth(), getHeight()));
 	}
 	
 	/**
-	 * Sets the GUI output messages to report that the simulation is
-	 * completed.
+	 * Replays the simulation up to the given time in the background and
+	 * shows it once it is ready. A seek that is asked for while another
+	 * one runs waits for it, and only the latest of those is run, whether
+	 * the one before worked or not. If the latest seek fails, the slider
+	 * goes back to the time shown.
+	 * @param clock System time to be shown
 	 */
-	public void setFinished() {
-		output.append("\n----------------------------------------");
-		output.append("\nFinished! Check \"csis.txt\" for output.");
-		sysStat = "Simulation Complete";
+	private void seek(final int clock) {
+		seekTarget = clock;
+		if (seeking) return;
+		seeking = true;
+		final Timeline timeline = this.timeline;
+		new SwingWorker<FramePublisher, Void>() {
+			protected FramePublisher doInBackground() {
+				return timeline.seek(clock);
+			}
+			
+			protected void done() {
+				seeking = false;
+				try {
+					FramePublisher result = get();
+					if (seekTarget == LIVE) return;
+					replay = result;
+					timeLabel.setText("Replay");
+				} catch (InterruptedException e) {
+					if (seekTarget == clock) {
+						resetTimeSlider();
+						return;
+					}
+				} catch (ExecutionException e) {
+					System.out.println("ERROR: Could not go to time " +
+							clock + ": " + e.getCause().getMessage());
+					if (seekTarget == clock) {
+						resetTimeSlider();
+						return;
+					}
+				}
+				if (seekTarget != LIVE && seekTarget != clock) seek(seekTarget);
+			}
+		}.execute();
 	}
 	
 	/**
-	 * Sets the given GUI job element to the GUI CPU.
-	 * @param n Index of the job to be moved to the GUI CPU
+	 * Puts the slider back on the time of the frames shown, after a seek
+	 * to another time failed.
 	 */
-	public void setToCPUJobVisual(int n) {
-		JobVisuals temp = jobs.get(n);
-		temp.moveToCPU();
-		sysStat = "Working";
-		setStatState();
-		cpuQuantum = (int)Math.pow(2, temp.getQueueLevel());
+	private void resetTimeSlider() {
+		if (replay == null) {
+			goLive();
+			return;
+		}
+		seekTarget = replay.getLatest().getClock();
+		sliderUpdating = true;
+		timeSlider.setValue(seekTarget);
+		sliderUpdating = false;
 	}
 	
 	/**
-	 * Sets the given GUI job element to its finished state so it will clear
-	 * out of the animation view.
-	 * @param n Index of the GUI job element to be removed
+	 * Goes back to showing the live frames of the simulation.
 	 */
-	public void finJobVisual(int n) {
-		JobVisuals temp = jobs.get(n);
-		temp.setFinished();
-		output.append("\nDEPARTURE:\t\t"+temp.getPID()+" - @ - "+sysTime);
-		sysStat = "Job Finished";
-		setStatState();
-		repaint();
-		cpuQuantum = 0;
+	private void goLive() {
+		seekTarget = LIVE;
+		replay = null;
+		timeLabel.setText("Live");
 	}
 	
 	/**
-	 * Increments the GUI system time.
+	 * Works out the ticks simulated per second from the system time shown
+	 * once the last measurement is RATE_NANOS old.
 	 */
-	public void incSystime() {
-		sysTime++;	
+	private void measureTickRate() {
+		long now = System.nanoTime();
+		if (rateClock < 0) {
+			tickRate = 0;
+			rateStart = now;
+			rateClock = sysTime;
+		}
+		if (now - rateStart < RATE_NANOS) return;
+		tickRate = (sysTime - rateClock) * 1e9 / (now - rateStart);
+		rateStart = now;
+		rateClock = sysTime;
 	}
 	
+	/**
+	 * Paints the areas that changed since the last frame. Areas that
+	 * overlap are merged first so nothing is painted twice. They are
+	 * painted one by one rather than through repaint(), which would
+	 * paint one rectangle around all of them.
+	 */
+	private void paintDirtyAreas() {
+		if (dirty.isEmpty()) return;
+		for (int i = 0; i < dirty.size(); i++) {
+			Rectangle area = dirty.get(i);
+			for (int j = i + 1; j < dirty.size(); j++) {
+				if (area.intersects(dirty.get(j))) {
+					area.add(dirty.remove(j));
+					j = i; // Start over as the area grew
+				}
+			}
+		}
+		for (Rectangle area : dirty) {
+			if (isShowing()) paintImmediately(area);
+			else repaint(area);
+		}
+		dirty.clear();
+	}
 	
-// ---------- Private methods
+	/**
+	 * Sets where every GUI job element belongs from a frame of the
+	 * simulation. Jobs new to the GUI get an element of their own and jobs
+	 * that are no longer in the frame are sent out of the view, up when
+	 * they are finished and down when they are too deep in a queue to be
+	 * seen. Frames in between that were never shown are skipped.
+	 * @param frame Frame to be shown
+	 */
+	private void showFrame(FrameSnapshot frame) {
+		HashMap<Integer, JobVisuals> shown = new HashMap<Integer, JobVisuals>();
+		if (aggregated.length != frame.getNumLevels())
+			aggregated = new boolean[frame.getNumLevels()];
+		for (int level = 0; level < frame.getNumLevels(); level++) {
+			boolean wasAggregated = aggregated[level];
+			if (frame.getQueueSize(level) > SceneRenderer.AGGREGATE_ABOVE)
+				aggregated[level] = true;
+			else if (frame.getQueueSize(level) < SceneRenderer.AGGREGATE_BELOW)
+				aggregated[level] = false;
+			if (aggregated[level] || wasAggregated)
+				dirty.add(scene.getQueueArea(level));
+			if (aggregated[level]) continue;
+			for (int i = 0; i < frame.getHeldCount(level); i++) {
+				JobVisuals visuals = takeJobVisual(frame.getJobID(level, i),
+						frame.getJobPID(level, i), frame.getJobTimeLeft(level, i),
+						level + 1);
+				visuals.setTimeLeft(frame.getJobTimeLeft(level, i));
+				visuals.moveToQueue(level + 1, i);
+				shown.put(frame.getJobID(level, i), visuals);
+			}
+		}
+		if (frame.getCPUJobID() != FrameSnapshot.NONE) {
+			JobVisuals visuals = takeJobVisual(frame.getCPUJobID(),
+					frame.getCPUJobPID(), frame.getCPUJobTimeLeft(), 1);
+			visuals.setTimeLeft(frame.getCPUJobTimeLeft());
+			visuals.moveToCPU();
+			shown.put(frame.getCPUJobID(), visuals);
+		}
+		if (settleNext) {
+			for (JobVisuals visuals : shown.values()) visuals.settle();
+			settleNext = false;
+		}
+		HashSet<Integer> departed = new HashSet<Integer>();
+		long departures = frame.getDepartureCount();
+		for (long n = Math.max(departuresShown, departures -
+						FramePublisher.LOG_SIZE); n < departures; n++) {
+			departed.add(frame.getDeparture(n));
+		}
+		departuresShown = departures;
+		for (Map.Entry<Integer, JobVisuals> entry : visualsByID.entrySet()) {
+			JobVisuals visuals = entry.getValue();
+			if (departed.contains(entry.getKey())) {
+				visuals.setTimeLeft(0);
+				visuals.setFinished();
+			} else {
+				visuals.moveOutOfView(SceneRenderer.VISIBLE_ROWS);
+			}
+			leavingByID.put(entry.getKey(), visuals);
+		}
+		visualsByID = shown;
+		
+		long logCount = frame.getLogCount();
+		long first = Math.max(logShown, logCount - LOG_LINES_PER_FRAME);
+		if (first > logShown)
+			output.append("\n... " + (first - logShown) + " events not shown");
+		for (long n = first; n < logCount; n++) {
+			output.append("\n" + frame.getLogLine(n));
+		}
+		logShown = logCount;
+		int excess = output.getLineCount() - MAX_OUTPUT_LINES;
+		if (excess > 0) {
+			Element lines = output.getDocument().getDefaultRootElement();
+			output.replaceRange("", 0, lines.getElement(excess).getStartOffset());
+		}
+		
+		if (frame.isFinished() && (shownFrame == null ||
+								   !shownFrame.isFinished())) {
+			output.append("\n----------------------------------------");
+			output.append("\nFinished! Check \"csis.txt\" for output.");
+		}
+		sysStat = frame.getStatus();
+		sysTime = frame.getClock();
+		if (cpuQuantum != frame.getQuantumLeft())
+			dirty.add(new Rectangle(QUANTUM_AREA));
+		cpuQuantum = frame.getQuantumLeft();
+		shownFrame = frame;
+	}
 	
 	/**
-	 * Adds a new custom visual element to be drawn.
-	 * @param in Visual element to be drawn
+	 * Returns the GUI job element of a job that is on screen or on its way
+	 * out, or adds one from the pool for a job that is new to the view.
+	 * @param id Visual ID of the job
+	 * @param pid Job's process ID
+	 * @param timeLeft Job's remaining CPU time
+	 * @param level Queue level a new element comes in under
+	 * @return GUI job element of the job
 	 */
-	private void addVisualObject(StaticVisuals in) {
-		elements.add(in);
+	private JobVisuals takeJobVisual(int id, int pid, int timeLeft,
+									 int level) {
+		JobVisuals visuals = visualsByID.remove(id);
+		if (visuals == null) visuals = leavingByID.remove(id);
+		if (visuals == null) {
+			visuals = pool.poll();
+			if (visuals == null) {
+				visuals = new JobVisuals(pid, timeLeft, spdMultiplier);
+				visuals.setImage(scene.getJobImage());
+			}
+			visuals.reset(pid, timeLeft, spdMultiplier, level);
+			jobList.add(visuals);
+		}
+		return visuals;
 	}
 	
 	/**
-	 * Adds a new GUI job element to the animation.
-	 * @param in GUI job element to be drawn
+	 * Takes the GUI job elements that have left the view out of the
+	 * animation and puts them back in the pool.
 	 */
-	private void addJobObject(JobVisuals in) {
-		jobs.add(in);
+	private void recycleJobVisuals() {
+		Iterator<JobVisuals> it = leavingByID.values().iterator();
+		while (it.hasNext()) {
+			JobVisuals visuals = it.next();
+			if (visuals.isGone()) {
+				it.remove();
+				jobList.remove(visuals);
+				pool.add(visuals);
+			}
+		}
 	}
 	
 	/**
@@ -247,11 +529,17 @@ public class VisualRepresentor extends JPanel {
 	 * the GUI.
 	 */
 	private void setStatState() {
-		systemStat.setText("System Time:\t         " + sysTime +
-				"\n\nSimulation speed:   x" + spdMultiplier +
-				"\n\n---------------------------------------------" +
+		String text = "System Time:\t         " + sysTime +
+				"\n\nSimulation speed:   " +
+				(turbo ? "Turbo" : "x" + spdMultiplier) +
+				"\nTicks/sec:   " + Math.round(tickRate) +
+				"\n---------------------------------------------" +
 				"\n------------System status-------------" +
-				"\n\n               " + sysStat);
+				"\n\n               " + sysStat;
+		// Setting the same text would still repaint the text area
+		if (text.equals(statText)) return;
+		statText = text;
+		systemStat.setText(text);
 	}
 	
 	/**
@@ -260,8 +548,11 @@ public class VisualRepresentor extends JPanel {
 	private void initWindow() {
 		this.setLayout(null);
 		jobList = new ArrayList<JobVisuals>();
-		elements = new ArrayList<StaticVisuals>();
-		jobs = new ArrayList<JobVisuals>();
+		dirty = new ArrayList<Rectangle>();
+		visualsByID = new HashMap<Integer, JobVisuals>();
+		leavingByID = new HashMap<Integer, JobVisuals>();
+		pool = new ArrayDeque<JobVisuals>();
+		aggregated = new boolean[0];
 		output = new JTextArea();
 		systemStat = new JTextArea();
 		outScroller = new JScrollPane();
@@ -296,59 +587,89 @@ public class VisualRepresentor extends JPanel {
 		outScroller.setViewportView(output);
 		this.add(outScroller);
 		this.add(systemStat);
+		
+		timeLabel = new JLabel("Live");
+		timeLabel.setForeground(Color.white);
+		timeLabel.setBounds(20, 543, 125, 20);
+		timeSlider = new JSlider(0, 0, 0);
+		timeSlider.setOpaque(false);
+		timeSlider.setFocusable(false);
+		timeSlider.setBounds(170, 543, 720, 20);
+		timeSlider.addChangeListener(new ChangeListener() {
+			public void stateChanged(ChangeEvent e) {
+				if (sliderUpdating) return;
+				if (timeSlider.getValue() >= timeSlider.getMaximum()) goLive();
+				else seek(timeSlider.getValue());
+			}
+		});
+		this.add(timeLabel);
+		this.add(timeSlider);
 	}
 	
 	/**
-	 * Handles loading images into the GUI system for drawing.
+	 * Handles loading images into the GUI system for drawing. The sprites
+	 * needed to start are loaded now and the scene is set up with them;
+	 * the background is loaded later by createBackground().
 	 * @throws IOException Missing images
 	 */
 	private void loadImages() throws IOException {
-		imgBG = ImageIO.read(new File("images/background.png"));
-		imgStart1 = ImageIO.read(new File("images/start1.png"));
-		imgStart2 = ImageIO.read(new File("images/start2.png"));
-		imgStart3 = ImageIO.read(new File("images/start3.png"));
-		imgSpd11 = ImageIO.read(new File("images/speed11.png"));
-		imgSpd12 = ImageIO.read(new File("images/speed12.png"));
-		imgSpd13 = ImageIO.read(new File("images/speed13.png"));
-		imgSpd21 = ImageIO.read(new File("images/speed21.png"));
-		imgSpd22 = ImageIO.read(new File("images/speed22.png"));
-		imgSpd23 = ImageIO.read(new File("images/speed23.png"));
-		imgSpd31 = ImageIO.read(new File("images/speed31.png"));
-		imgSpd32 = ImageIO.read(new File("images/speed32.png"));
-		imgSpd33 = ImageIO.read(new File("images/speed33.png"));
-		imgSpd41 = ImageIO.read(new File("images/speed41.png"));
-		imgSpd42 = ImageIO.read(new File("images/speed42.png"));
-		imgSpd43 = ImageIO.read(new File("images/speed43.png"));
-		imgSpd51 = ImageIO.read(new File("images/speed51.png"));
-		imgSpd52 = ImageIO.read(new File("images/speed52.png"));
-		imgSpd53 = ImageIO.read(new File("images/speed53.png"));
-		imgJob = ImageIO.read(new File("images/job.png"));
-		imgJobSpace = ImageIO.read(new File("images/jobspace.png"));
-		imgCPU = ImageIO.read(new File("images/cpu.png"));
+		SpriteAtlas atlas = SpriteAtlas.load(IMAGE_DIR,
+				"start1", "start2", "start3",
+				"speed11", "speed12", "speed13",
+				"speed21", "speed22", "speed23",
+				"speed31", "speed32", "speed33",
+				"speed41", "speed42", "speed43",
+				"speed51", "speed52", "speed53",
+				"turbo1", "turbo2", "turbo3",
+				"job", "jobspace", "cpu");
+		scene = new SceneRenderer(atlas, getFont().deriveFont(Font.BOLD));
+		imgStart1 = atlas.get("start1");
+		imgStart2 = atlas.get("start2");
+		imgStart3 = atlas.get("start3");
+		imgSpd11 = atlas.get("speed11");
+		imgSpd12 = atlas.get("speed12");
+		imgSpd13 = atlas.get("speed13");
+		imgSpd21 = atlas.get("speed21");
+		imgSpd22 = atlas.get("speed22");
+		imgSpd23 = atlas.get("speed23");
+		imgSpd31 = atlas.get("speed31");
+		imgSpd32 = atlas.get("speed32");
+		imgSpd33 = atlas.get("speed33");
+		imgSpd41 = atlas.get("speed41");
+		imgSpd42 = atlas.get("speed42");
+		imgSpd43 = atlas.get("speed43");
+		imgSpd51 = atlas.get("speed51");
+		imgSpd52 = atlas.get("speed52");
+		imgSpd53 = atlas.get("speed53");
+		imgTurbo1 = atlas.get("turbo1");
+		imgTurbo2 = atlas.get("turbo2");
+		imgTurbo3 = atlas.get("turbo3");
 	}
 	
 	/**
-	 * Creates custom visual background objects for the GUI.
+	 * Loads the background of the scene. It is decoded in the background
+	 * and drawn once it is ready; until then the plain panel shows through.
 	 */
 	private void createBackground() {
-		StaticVisuals bgTile1 = new StaticVisuals();
-		StaticVisuals bgTile2 = new StaticVisuals();
-		StaticVisuals bgTile3 = new StaticVisuals();
-		StaticVisuals bgTile4 = new StaticVisuals();
-		
-		bgTile1.setImage(imgBG);
-		bgTile2.setImage(imgBG);
-		bgTile3.setImage(imgBG);
-		bgTile4.setImage(imgBG);
-		
-		bgTile2.setPosition(800, 0);
-		bgTile3.setPosition(0, 600);
-		bgTile4.setPosition(800, 600);
-		
-		this.addVisualObject(bgTile1);
-		this.addVisualObject(bgTile2);
-		this.addVisualObject(bgTile3);
-		this.addVisualObject(bgTile4);
+		new SwingWorker<BufferedImage, Void>() {
+			protected BufferedImage doInBackground() throws IOException {
+				return SpriteAtlas.readImage(
+						new File(IMAGE_DIR, "background.png"));
+			}
+			
+			protected void done() {
+				try {
+					scene.setBackground(get());
+				} catch (InterruptedException e) {
+					return;
+				} catch (ExecutionException e) {
+					System.out.println("ERROR: Background could not be " +
+							"loaded: " + e.getCause().getMessage());
+					return;
+				}
+				repaint();
+			}
+		}.execute();
 	}
 	
 	/**
@@ -361,6 +682,7 @@ public class VisualRepresentor extends JPanel {
 		btnSpd3 = new JButton();
 		btnSpd4 = new JButton();
 		btnSpd5 = new JButton();
+		btnTurbo = new JButton();
 		
 		Rectangle btnStartPos = new Rectangle(20, 20,
 							imgStart1.getWidth(), imgStart1.getHeight());
@@ -374,6 +696,8 @@ public class VisualRepresentor extends JPanel {
 							imgSpd41.getWidth(), imgSpd41.getHeight());
 		Rectangle btnSpd5Pos = new Rectangle(20, 320,
 							imgSpd51.getWidth(), imgSpd51.getHeight());
+		Rectangle btnTurboPos = new Rectangle(20, 380,
+							imgTurbo1.getWidth(), imgTurbo1.getHeight());
 		
 		setButton(btnStart, imgStart1, imgStart2, imgStart3, btnStartPos);
 		setButton(btnSpd1, imgSpd11, imgSpd12, imgSpd13, btnSpd1Pos);
@@ -381,6 +705,7 @@ public class VisualRepresentor extends JPanel {
 		setButton(btnSpd3, imgSpd31, imgSpd32, imgSpd33, btnSpd3Pos);
 		setButton(btnSpd4, imgSpd41, imgSpd42, imgSpd43, btnSpd4Pos);
 		setButton(btnSpd5, imgSpd51, imgSpd52, imgSpd53, btnSpd5Pos);
+		setButton(btnTurbo, imgTurbo1, imgTurbo2, imgTurbo3, btnTurboPos);
 		
 		btnStart.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
@@ -400,7 +725,8 @@ public class VisualRepresentor extends JPanel {
 		btnSpd2.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
 				spdMultiplier = 1;
-				for (JobVisuals visuals : jobs) {
+				turbo = false;
+				for (JobVisuals visuals : jobList) {
 					visuals.setSpeedMultiplier(spdMultiplier);
 				}
 			}
@@ -409,7 +735,8 @@ public class VisualRepresentor extends JPanel {
 		btnSpd3.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
 				spdMultiplier = 2;
-				for (JobVisuals visuals : jobs) {
+				turbo = false;
+				for (JobVisuals visuals : jobList) {
 					visuals.setSpeedMultiplier(spdMultiplier);
 				}
 			}
@@ -418,7 +745,8 @@ public class VisualRepresentor extends JPanel {
 		btnSpd4.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
 				spdMultiplier = 4;
-				for (JobVisuals visuals : jobs) {
+				turbo = false;
+				for (JobVisuals visuals : jobList) {
 					visuals.setSpeedMultiplier(spdMultiplier);
 				}
 			}
@@ -427,7 +755,18 @@ public class VisualRepresentor extends JPanel {
 		btnSpd5.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
 				spdMultiplier = 8;
-				for (JobVisuals visuals : jobs) {
+				turbo = false;
+				for (JobVisuals visuals : jobList) {
+					visuals.setSpeedMultiplier(spdMultiplier);
+				}
+			}
+		});
+		
+		btnTurbo.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				spdMultiplier = TURBO_SPEED;
+				turbo = true;
+				for (JobVisuals visuals : jobList) {
 					visuals.setSpeedMultiplier(spdMultiplier);
 				}
 			}
@@ -467,31 +806,18 @@ public class VisualRepresentor extends JPanel {
 	protected void paintComponent(Graphics g) {
 		super.paintComponent(g);
 		
-		for (StaticVisuals visuals : elements) {
-			visuals.drawSprite(g);
-		}
-		
-		g.drawImage(imgJobSpace, 175, 220, null);
-		g.drawImage(imgJobSpace, 375, 220, null);
-		g.drawImage(imgJobSpace, 575, 220, null);
-		g.drawImage(imgJobSpace, 775, 220, null);
-		g.drawImage(imgCPU, 390, 20, null);
-		g.setColor(Color.blue);
+		scene.drawStatic(g);
+		scene.drawQuantum(g, cpuQuantum);
 		
-		g.setColor(Color.white);
-		g.setFont(g.getFont().deriveFont(Font.BOLD));
-		g.drawString("CPU Quantum: " + cpuQuantum, 420, 143);
-		g.drawString("Queue 1", 175, 210);
-		g.drawString("Queue 2", 375, 210);
-		g.drawString("Queue 3", 575, 210);
-		g.drawString("Queue 4", 775, 210);
-		g.drawRect(579,20,351,141);
-		g.drawRect(179,19,171,141);
+		for (int level = 0; level < aggregated.length; level++) {
+			if (aggregated[level]) scene.drawAggregate(g, shownFrame, level);
+		}
 		
-		g.setColor(Color.black);
-		for (JobVisuals visuals : jobs) {
-			visuals.drawImage(g);
-			visuals.drawText(g);
+		Rectangle area = g.getClipBounds();
+		if (area == null) area = new Rectangle(0, 0, getWidth(), getHeight());
+		for (JobVisuals visuals : jobList) {
+			if (!visuals.intersects(area)) continue;
+			scene.drawJob(g, visuals);
 		}
 	}
 }
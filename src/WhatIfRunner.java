@@ -0,0 +1,255 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Answers "what if" questions about the scheduler by forking many
+ * simulations from one snapshot, each with its own quantum per queue
+ * level, and running them side by side on a fork-join pool. Every branch
+ * starts from the same state, so only the part after the snapshot is
+ * simulated again.
+ */
+public class WhatIfRunner {
+
+// ---------- Field members
+
+	private EngineSnapshot snapshot;
+	private SourceFactory sources;
+	private ForkJoinPool pool;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a runner that uses the common fork-join pool.
+	 * @param snapshot State every branch starts from
+	 * @param sources Opens the input the snapshot was taken from
+	 */
+	public WhatIfRunner(EngineSnapshot snapshot, SourceFactory sources) {
+		this(snapshot, sources, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a runner that uses the given pool.
+	 * @param snapshot State every branch starts from
+	 * @param sources Opens the input the snapshot was taken from
+	 * @param pool Pool the branches run on
+	 */
+	public WhatIfRunner(EngineSnapshot snapshot, SourceFactory sources,
+						ForkJoinPool pool) {
+		this.snapshot = snapshot;
+		this.sources = sources;
+		this.pool = pool;
+	}
+
+	/**
+	 * Runs every scenario to the end of its input and waits for all of
+	 * them.
+	 * @param scenarios Scenarios to be run
+	 * @return Results in the order of the scenarios
+	 * @throws IOException Input of a branch could not be read
+	 * @throws IllegalArgumentException A scenario sets the quantum of a
+	 * level the snapshot does not have
+	 */
+	public List<Result> run(List<Scenario> scenarios) throws IOException {
+		for (Scenario scenario : scenarios) {
+			if (scenario.quantum.length > snapshot.getNumLevels())
+				throw new IllegalArgumentException("Scenario " +
+						scenario.getName() + " sets queue level " +
+						scenario.quantum.length + " of only " +
+						snapshot.getNumLevels());
+		}
+		List<Callable<Result>> branches = new ArrayList<Callable<Result>>();
+		for (final Scenario scenario : scenarios) {
+			branches.add(new Callable<Result>() {
+				public Result call() throws IOException {
+					return runBranch(scenario);
+				}
+			});
+		}
+
+		List<Result> results = new ArrayList<Result>();
+		for (Future<Result> branch : pool.invokeAll(branches)) {
+			try {
+				results.add(branch.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while running branches", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException)
+					throw (IOException)e.getCause();
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException)e.getCause();
+				throw new IOException("Branch failed", e.getCause());
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Appends a table with the statistics of every branch. Every column
+	 * covers only what happened after the fork: the jobs that left since
+	 * the snapshot and the CPU idle time since then.
+	 * @param sb Builder the table is appended to
+	 * @param results Results of the branches
+	 */
+	public static void appendReport(StringBuilder sb, List<Result> results) {
+		String nl = System.lineSeparator();
+		sb.append(String.format(Locale.ROOT, "%-20s   %10s   %10s   %10s   %10s   %10s",
+				"Scenario", "Jobs", "Avg TA", "p99 TA", "p99 Resp", "Idle"));
+		sb.append(nl);
+		for (Result result : results) {
+			LatencyHistogram turnaround =
+					result.latencies.getTotal(LatencyStats.TURNAROUND);
+			LatencyHistogram response =
+					result.latencies.getTotal(LatencyStats.RESPONSE);
+			sb.append(String.format(Locale.ROOT,
+					"%-20s   %10d   %10.2f   %10d   %10d   %10d",
+					result.scenario.getName(), turnaround.getCount(),
+					turnaround.getMean(),
+					turnaround.getValueAtPercentile(99.0),
+					response.getValueAtPercentile(99.0),
+					result.idleTime));
+			sb.append(nl);
+		}
+	}
+
+
+// ---------- Private methods
+
+	/**
+	 * Forks one simulation from the snapshot and runs it to the end.
+	 * @param scenario Settings of the branch
+	 * @return Result of the branch
+	 * @throws IOException Input could not be read
+	 */
+	private Result runBranch(Scenario scenario) throws IOException {
+		JobSource source = sources.open();
+		try {
+			LatencyStats latencies = new LatencyStats(snapshot.getNumLevels());
+			SimulationEngine engine = new SimulationEngine(source, latencies,
+														   snapshot);
+			for (int level = 0; level < snapshot.getNumLevels(); level++) {
+				int quantum = scenario.getQuantum(level);
+				if (quantum > 0) engine.setQuantum(level, quantum);
+			}
+			SimulationStats stats = engine.run();
+			return new Result(scenario, stats, latencies,
+					stats.getCPUIdleTime() - snapshot.stats.getCPUIdleTime());
+		} finally {
+			if (source instanceof Closeable) ((Closeable)source).close();
+		}
+	}
+
+
+// ---------- Inner classes
+
+	/**
+	 * Opens the input of a branch from its first job. Every branch gets
+	 * its own source.
+	 */
+	public interface SourceFactory {
+
+		/**
+		 * Opens a new source of the input. A SkippableJobSource may be
+		 * opened at the job the snapshot was taken at, so that branches
+		 * do not each read the jobs before the fork.
+		 * @return Source positioned at the first job or the fork's job
+		 * @throws IOException Input could not be opened
+		 */
+		JobSource open() throws IOException;
+	}
+
+	/**
+	 * Settings of one branch. Levels without a quantum of their own keep
+	 * the default.
+	 */
+	public static class Scenario {
+		private String name;
+		private int[] quantum;
+
+		/**
+		 * Creates a scenario with the default quantum at every level.
+		 * @param name Name shown in the report
+		 */
+		public Scenario(String name) {
+			this.name = name;
+			quantum = new int[0];
+		}
+
+		/**
+		 * Sets the quantum of a queue level for this branch.
+		 * @param level Queue level
+		 * @param ticks Quantum in ticks, at least 1
+		 * @return This scenario
+		 */
+		public Scenario setQuantum(int level, int ticks) {
+			if (ticks < 1)
+				throw new IllegalArgumentException("Quantum must be at least 1");
+			if (level >= quantum.length)
+				quantum = Arrays.copyOf(quantum, level + 1);
+			quantum[level] = ticks;
+			return this;
+		}
+
+		/**
+		 * Returns the quantum of a queue level for this branch.
+		 * @param level Queue level
+		 * @return Quantum in ticks or 0 for the default
+		 */
+		public int getQuantum(int level) {
+			return level < quantum.length ? quantum[level] : 0;
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+
+	/**
+	 * Statistics of one branch. The SimulationStats cover the whole run,
+	 * from before the fork on; the latencies and the idle time only cover
+	 * the time after it.
+	 */
+	public static class Result {
+		private Scenario scenario;
+		private SimulationStats stats;
+		private LatencyStats latencies;
+		private long idleTime;
+
+		Result(Scenario scenario, SimulationStats stats,
+			   LatencyStats latencies, long idleTime) {
+			this.scenario = scenario;
+			this.stats = stats;
+			this.latencies = latencies;
+			this.idleTime = idleTime;
+		}
+
+		public Scenario getScenario() {
+			return scenario;
+		}
+
+		public SimulationStats getStats() {
+			return stats;
+		}
+
+		public LatencyStats getLatencies() {
+			return latencies;
+		}
+
+		/**
+		 * Returns the CPU idle time of the branch after the fork.
+		 * @return Idle ticks since the snapshot
+		 */
+		public long getIdleTime() {
+			return idleTime;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+import java.util.SplittableRandom;
+
+/**
+ * Makes up jobs as the engine asks for them, so a workload of any length
+ * can be simulated without an input file and in constant memory. When
+ * each job arrives and how long it needs are decided by an ArrivalModel
+ * and a ServiceModel. The same seed always gives the same workload.
+ *
+ * Process IDs count up from 1 and wrap around after Integer.MAX_VALUE.
+ * Since the system clock is an int, the workload also ends early if an
+ * arrival would come after Integer.MAX_VALUE ticks.
+ */
+public class WorkloadGenerator implements JobSource {
+
+// ---------- Field members
+
+	// Last tick a job may arrive, leaving room for the clock to run on
+	private static final double LAST_ARRIVAL = Integer.MAX_VALUE / 2;
+
+	private ArrivalModel arrivals;
+	private ServiceModel service;
+	private SplittableRandom random;
+	private long remaining;
+	private int pid;
+	private double nextArrival;
+
+
+// ---------- Public methods
+
+	/**
+	 * Creates a generator of the given number of jobs.
+	 * @param numJobs Number of jobs, Long.MAX_VALUE for no limit
+	 * @param arrivals When the jobs arrive
+	 * @param service How much CPU time the jobs need
+	 * @param seed Seed of the random numbers
+	 */
+	public WorkloadGenerator(long numJobs, ArrivalModel arrivals,
+							 ServiceModel service, long seed) {
+		this.arrivals = arrivals;
+		this.service = service;
+		random = new SplittableRandom(seed);
+		remaining = numJobs;
+		pid = 0;
+		nextArrival = arrivals.nextArrival(0.0, random);
+	}
+
+	/**
+	 * Returns whether or not there is another job to generate.
+	 * @return More jobs or not
+	 */
+	public boolean hasNextJob() {
+		return remaining > 0 && nextArrival <= LAST_ARRIVAL;
+	}
+
+	/**
+	 * Generates the next job into the table.
+	 * @param table Table that the job is added to
+	 * @return Handle of the job that was generated
+	 */
+	public int nextJob(JobTable table) {
+		int arrival = (int)nextArrival;
+		pid = pid == Integer.MAX_VALUE ? 1 : pid + 1;
+		int job = table.add(pid, arrival, service.nextServiceTime(random));
+		remaining--;
+		nextArrival = arrivals.nextArrival(nextArrival, random);
+		return job;
+	}
+}